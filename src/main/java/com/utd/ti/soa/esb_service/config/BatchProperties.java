@@ -0,0 +1,18 @@
+package com.utd.ti.soa.esb_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Endpoint /app/esb/batch (esb.batch)
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "esb.batch")
+public class BatchProperties {
+
+    // Peticiones como máximo por lote
+    private int maxRequests = 50;
+    // Subpeticiones que se reenvían a la vez
+    private int maxConcurrency = 8;
+}
@@ -0,0 +1,21 @@
+package com.utd.ti.soa.esb_service.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Caché de respuestas GET (esb.cache), con un TTL por ruta
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "esb.cache")
+public class CacheProperties {
+
+    private boolean enabled = true;
+    private int maxSize = 1000;
+    private Map<String, Duration> ttl = new LinkedHashMap<>();
+}
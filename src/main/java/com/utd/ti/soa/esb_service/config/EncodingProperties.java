@@ -0,0 +1,16 @@
+package com.utd.ti.soa.esb_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Codificaciones binarias negociadas con Accept / Content-Type (esb.encoding)
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "esb.encoding")
+public class EncodingProperties {
+
+    // Smile y CBOR para consumidores internos; apagado, todo se responde en JSON
+    private boolean binaryEnabled = false;
+}
@@ -0,0 +1,22 @@
+package com.utd.ti.soa.esb_service.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Cabecera Idempotency-Key en las rutas con idempotent: true (esb.idempotency)
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "esb.idempotency")
+public class IdempotencyProperties {
+
+    // Tiempo que se conserva la respuesta de una clave para responder a los reintentos
+    private Duration ttl = Duration.ofHours(24);
+    // Claves como máximo en el almacén en memoria; al superarlo se descartan las más antiguas ya terminadas
+    // y, si todas siguen en curso, las claves nuevas reciben 503
+    private int maxEntries = 10000;
+    private int maxKeyLength = 255;
+}
@@ -0,0 +1,16 @@
+package com.utd.ti.soa.esb_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Paginación de las rutas con listing: true (esb.listing)
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "esb.listing")
+public class ListingProperties {
+
+    private int defaultPageSize = 50;
+    private int maxPageSize = 1000;
+}
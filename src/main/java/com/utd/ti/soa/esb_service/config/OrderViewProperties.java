@@ -0,0 +1,24 @@
+package com.utd.ti.soa.esb_service.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Vista compuesta de una orden y checkout (esb.order-view)
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "esb.order-view")
+public class OrderViewProperties {
+
+    // Campo con el que se localizan el usuario y el producto dentro de los listados de los microservicios
+    private String idField = "id";
+    // Comprueba estado, stock e importe del producto antes de crear la orden en payments
+    private boolean validateStock = true;
+    // Roles que pueden usar la vista y el checkout; cada consulta interna exige además los roles de su ruta,
+    // así que solo tiene sentido incluir roles que puedan leer list-users, get-client y list-products
+    private List<String> roles = new ArrayList<>(List.of("admin"));
+}
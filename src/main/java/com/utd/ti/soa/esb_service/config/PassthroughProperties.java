@@ -0,0 +1,24 @@
+package com.utd.ti.soa.esb_service.config;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Campos que se eliminan al reenviar los listados del upstream (esb.passthrough.drop-fields.<ruta>)
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "esb.passthrough")
+public class PassthroughProperties {
+
+    private Map<String, Set<String>> dropFields = new LinkedHashMap<>();
+
+    public Set<String> dropFieldsFor(String route) {
+        return dropFields.getOrDefault(route, new LinkedHashSet<>());
+    }
+}
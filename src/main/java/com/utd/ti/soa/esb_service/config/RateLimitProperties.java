@@ -0,0 +1,40 @@
+package com.utd.ti.soa.esb_service.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Límite de peticiones por cliente delante de los microservicios (esb.rate-limit)
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "esb.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    // Límite de las rutas y roles sin entrada propia en routes
+    private Limit defaultLimit = new Limit();
+    // Por id de ruta y rol; "anonymous" para peticiones sin token válido y "*" para cualquier rol
+    private Map<String, Map<String, Limit>> routes = new LinkedHashMap<>();
+    // Clientes con cubeta propia; por encima, los nuevos comparten una cubeta por ruta y rol hasta el próximo barrido
+    private int maxKeys = 100000;
+    // Cada cuánto se descartan las cubetas llenas (clientes inactivos), fuera del camino de las peticiones
+    private Duration sweepInterval = Duration.ofSeconds(10);
+    // IPs o rangos CIDR de los proxies delante del ESB; solo de ellos se cree Forwarded / X-Forwarded-For
+    private List<String> trustedProxies = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Limit {
+        // Peticiones seguidas que se admiten con la cubeta llena
+        private int capacity = 100;
+        // Tokens que recupera la cubeta por segundo; 0 = sin límite
+        private double perSecond = 50;
+    }
+}
@@ -0,0 +1,39 @@
+package com.utd.ti.soa.esb_service.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Reintentos y peticiones de cobertura (hedging) por id de ruta (esb.retry); solo rutas GET
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "esb.retry")
+public class RetryProperties {
+
+    private Map<String, Policy> routes = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Policy {
+        // Intentos en total, incluido el primero
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(1);
+        // Estados del microservicio que se reintentan; los fallos de conexión se reintentan siempre
+        private Set<Integer> retryOn = new LinkedHashSet<>(List.of(502, 503, 504));
+        // Si el intento no responde en el percentil hedge-percentile de la ruta, se lanza otro y gana el primero
+        private boolean hedge;
+        private double hedgePercentile = 0.95;
+        // Límites del retardo de cobertura; mientras no hay muestras suficientes se usa hedge-max-delay
+        private Duration hedgeMinDelay = Duration.ofMillis(20);
+        private Duration hedgeMaxDelay = Duration.ofSeconds(1);
+    }
+}
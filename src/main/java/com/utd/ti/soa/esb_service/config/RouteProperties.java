@@ -0,0 +1,46 @@
+package com.utd.ti.soa.esb_service.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.utd.ti.soa.esb_service.routing.RouteAuth;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Tabla de rutas del ESB (esb.routes): cada entrada publica una ruta bajo /app/esb y la reenvía a un microservicio
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "esb")
+public class RouteProperties {
+
+    private List<Definition> routes = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Definition {
+        private String id;
+        private String method;
+        private String path;
+        private RouteAuth auth = RouteAuth.TOKEN;
+        private List<String> roles = new ArrayList<>();
+        private String deniedMessage = "Acceso denegado";
+        private String upstream;
+        private String upstreamMethod;
+        private String upstreamPath;
+        // Nombre de una clase de model (User, Client...), "raw" para reenviar el cuerpo tal cual o vacío si no lleva cuerpo
+        private String bodyType;
+        private Duration timeout;
+        private String errorMessage = "Error interno: ";
+        private List<String> invalidates = new ArrayList<>();
+        // Listado JSON que admite paginación (page/size o cursor) y streaming NDJSON/SSE
+        private boolean listing;
+        // Admite la cabecera Idempotency-Key: los reintentos con la misma clave no repiten la escritura
+        private boolean idempotent;
+        // Admite "Prefer: respond-async": se responde 202 y la escritura se envía después (esb.write-behind)
+        private boolean async;
+    }
+}
@@ -0,0 +1,59 @@
+package com.utd.ti.soa.esb_service.config;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.utd.ti.soa.esb_service.utils.Auth;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Corre con todos los beans creados y antes de abrir el puerto (también en la ejecución de entrenamiento de CDS),
+// así lo que carga queda en el archivo de clases compartidas y no lo paga la primera petición
+@Slf4j
+@Component
+public class StartupWarmup implements SmartInitializingSingleton {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final Auth auth;
+    private final UpstreamClients upstreamClients;
+    private final boolean enabled;
+    private final boolean preconnect;
+    private final Duration preconnectTimeout;
+
+    public StartupWarmup(Auth auth, UpstreamClients upstreamClients,
+                         @Value("${esb.warmup.enabled:true}") boolean enabled,
+                         @Value("${esb.warmup.preconnect:true}") boolean preconnect,
+                         @Value("${esb.warmup.preconnect-timeout:2s}") Duration preconnectTimeout) {
+        this.auth = auth;
+        this.upstreamClients = upstreamClients;
+        this.enabled = enabled;
+        this.preconnect = preconnect;
+        this.preconnectTimeout = preconnectTimeout;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            auth.warmUp();
+            upstreamClients.warmup().block(TIMEOUT);
+            if (preconnect) {
+                log.info("Conexiones abiertas de antemano: {} microservicios respondieron",
+                        upstreamClients.preconnect(preconnectTimeout).block(TIMEOUT));
+            }
+            log.info("Calentamiento de claves JWT y clientes HTTP en {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (RuntimeException e) {
+            // Sin calentar el ESB funciona igual; solo la primera petición es más lenta
+            log.warn("Falló el calentamiento inicial: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.utd.ti.soa.esb_service.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.utd.ti.soa.esb_service.metrics.GatewayMetrics;
+import com.utd.ti.soa.esb_service.resilience.UpstreamGuards;
+
+import io.netty.channel.ChannelOption;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+// Un WebClient con su propio pool de conexiones por cada microservicio de destino
+@Component
+@EnableConfigurationProperties(UpstreamProperties.class)
+public class UpstreamClients implements DisposableBean {
+
+    private final Map<String, WebClient> clients = new LinkedHashMap<>();
+    private final Map<String, ConnectionProvider> providers = new LinkedHashMap<>();
+    private final Map<String, String> baseUrls = new LinkedHashMap<>();
+    private final Map<String, HttpClient> httpClients = new LinkedHashMap<>();
+
+    public UpstreamClients(UpstreamProperties properties, UpstreamGuards guards, GatewayMetrics metrics) {
+        properties.getUpstream().forEach((name, service) -> {
+            // metrics(true) publica active/idle/pending en reactor.netty.connection.provider.* por pool
+            ConnectionProvider provider = ConnectionProvider.builder("esb-" + name)
+                    .maxConnections(service.getMaxConnections())
+                    .pendingAcquireMaxCount(service.getPendingAcquireMaxCount())
+                    .pendingAcquireTimeout(service.getPendingAcquireTimeout())
+                    .maxIdleTime(service.getMaxIdleTime())
+                    .maxLifeTime(service.getMaxLifeTime())
+                    .evictInBackground(service.getEvictInBackground())
+                    .metrics(true)
+                    .build();
+
+            HttpClient httpClient = HttpClient.create(provider)
+                    .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) service.getConnectTimeout().toMillis())
+                    .responseTimeout(service.getResponseTimeout())
+                    .compress(service.isCompress());
+            if (service.isHttp2() && service.getBaseUrl().startsWith("https")) {
+                httpClient = httpClient.secure().protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+            }
+
+            providers.put(name, provider);
+            httpClients.put(name, httpClient);
+            baseUrls.put(name, service.getBaseUrl());
+            clients.put(name, WebClient.builder()
+                    .baseUrl(service.getBaseUrl())
+                    .filter(guards.filterFor(name, service))
+                    .filter(metrics.upstreamFilter(name, service.getBaseUrl()))
+                    .clientConnector(new ReactorClientHttpConnector(httpClient))
+                    .build());
+        });
+    }
+
+    public WebClient get(String service) {
+        WebClient client = clients.get(service);
+        if (client == null) {
+            throw new IllegalArgumentException("Servicio de destino no configurado: " + service);
+        }
+        return client;
+    }
+
+    public String baseUrl(String service) {
+        get(service);
+        return baseUrls.get(service);
+    }
+
+    // Event loops, resolvedor DNS y transporte nativo listos antes de la primera llamada; no abre conexiones
+    public Mono<Void> warmup() {
+        return Flux.fromIterable(httpClients.values())
+                .flatMap(HttpClient::warmup)
+                .then();
+    }
+
+    // Abre una conexión por microservicio con un HEAD a su URL base y la deja en el pool (TCP y TLS ya negociados).
+    // Va por el HttpClient, sin circuit breaker ni métricas: si un microservicio no responde a tiempo se ignora.
+    // Devuelve cuántos respondieron
+    public Mono<Long> preconnect(Duration timeout) {
+        return Flux.fromIterable(httpClients.keySet())
+                .flatMap(name -> httpClients.get(name).head().uri(baseUrls.get(name))
+                        .responseSingle((response, body) -> body.then(Mono.just(response.status().code())))
+                        .timeout(timeout)
+                        .onErrorResume(e -> Mono.empty()))
+                .count();
+    }
+
+    @Override
+    public void destroy() {
+        providers.values().forEach(ConnectionProvider::dispose);
+    }
+}
@@ -0,0 +1,57 @@
+package com.utd.ti.soa.esb_service.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Configuración de cada microservicio de destino (esb.upstream.<servicio>)
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "esb")
+public class UpstreamProperties {
+
+    private Map<String, Service> upstream = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Service {
+        private String baseUrl;
+        private int maxConnections = 100;
+        private int pendingAcquireMaxCount = 1000;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInBackground = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofSeconds(3);
+        private Duration responseTimeout = Duration.ofSeconds(10);
+        private boolean compress = true;
+        private boolean http2 = false;
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+        private Bulkhead bulkhead = new Bulkhead();
+    }
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        private boolean enabled = true;
+        private float failureRateThreshold = 50;
+        private float slowCallRateThreshold = 100;
+        private Duration slowCallDurationThreshold = Duration.ofSeconds(5);
+        private int slidingWindowSize = 20;
+        private int minimumNumberOfCalls = 10;
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+        private int permittedCallsInHalfOpenState = 3;
+    }
+
+    @Getter
+    @Setter
+    public static class Bulkhead {
+        private boolean enabled = true;
+        private int maxConcurrentCalls = 100;
+    }
+}
@@ -0,0 +1,31 @@
+package com.utd.ti.soa.esb_service.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Modo asíncrono de las escrituras (esb.write-behind): con "Prefer: respond-async" en una ruta con async: true
+// la petición se valida, se guarda en disco y se responde 202; los workers la envían después al microservicio
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "esb.write-behind")
+public class WriteBehindProperties {
+
+    private boolean enabled = false;
+    // Carpeta del registro de trabajos; debe sobrevivir a los reinicios del ESB. Los trabajos pendientes guardan el
+    // token del cliente: la carpeta no debe compartirse ni copiarse a respaldos sin cifrar
+    private String directory = "data/write-behind";
+    private int workers = 2;
+    // Trabajos que un worker envía a la vez y registra con una sola escritura a disco
+    private int batchSize = 20;
+    private int maxAttempts = 5;
+    private Duration initialBackoff = Duration.ofSeconds(1);
+    private Duration maxBackoff = Duration.ofMinutes(1);
+    // Tiempo que se puede consultar el resultado de un trabajo terminado
+    private Duration resultTtl = Duration.ofHours(24);
+    // Tamaño del registro a partir del cual se reescribe solo con los trabajos vigentes
+    private long compactBytes = 64L * 1024 * 1024;
+}
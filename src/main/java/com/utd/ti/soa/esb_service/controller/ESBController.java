@@ -1,367 +1,113 @@
 package com.utd.ti.soa.esb_service.controller;
 
+import java.util.List;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.core.ParameterizedTypeReference;
-import java.util.List;
-
-import com.utd.ti.soa.esb_service.utils.Auth;
-import com.utd.ti.soa.esb_service.model.User;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.utd.ti.soa.esb_service.model.Client;
-import com.utd.ti.soa.esb_service.model.Product;
-import com.utd.ti.soa.esb_service.model.CreateOrderRequest;
-
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import com.utd.ti.soa.esb_service.model.BatchItem;
+import com.utd.ti.soa.esb_service.model.CheckoutRequest;
+import com.utd.ti.soa.esb_service.routing.BatchDispatcher;
+import com.utd.ti.soa.esb_service.routing.GatewayRequest;
+import com.utd.ti.soa.esb_service.routing.OrderViewAssembler;
+import com.utd.ti.soa.esb_service.routing.RouteDispatcher;
+import com.utd.ti.soa.esb_service.utils.ClientAddressResolver;
+import com.utd.ti.soa.esb_service.utils.HandlerExecutor;
+import com.utd.ti.soa.esb_service.writebehind.WriteBehindQueue;
+
+// Todas las rutas de /app/esb se declaran en esb.routes (application.yaml) y las resuelve RouteDispatcher
 @RestController
-@RequestMapping("/app/esb")
+@RequestMapping(ESBController.BASE_PATH)
 public class ESBController {
 
-    private final WebClient webClient = WebClient.create();
-    private final Auth auth;
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
-    public ESBController(Auth auth) {
-        this.auth = auth;
-    }
-
-    // ---------- USERS ----------
-
-    @PostMapping("/users")
-    public ResponseEntity<String> createUser(
-            @RequestBody User user,
-            @RequestHeader(HttpHeaders.AUTHORIZATION) String token) {
-        try {
-            if (auth.validateToken(token) == null) {
-                return ResponseEntity.status(401).body("Token inválido o expirado");
-            }
-            String response = webClient.post()
-                    .uri("https://userspf-production.up.railway.app/users/newUser")
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .bodyValue(user)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error interno al crear usuario: " + e.getMessage());
-        }
-    }
-
-    @GetMapping("/users")
-    public ResponseEntity<String> getUsers(
-            @RequestHeader(HttpHeaders.AUTHORIZATION) String token) {
-        if (!auth.hasRole(token, "admin")) {
-            return ResponseEntity.status(403).body("Acceso denegado: Se requiere rol de administrador");
-        }
-        try {
-            String response = webClient.get()
-                    .uri("https://userspf-production.up.railway.app/users/getUsers")
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error interno: " + e.getMessage());
-        }
-    }
-
-    @PatchMapping("/users/update/{id}")
-    public ResponseEntity<String> updateUser(
-            @PathVariable Long id,
-            @RequestBody User user,
-            @RequestHeader(HttpHeaders.AUTHORIZATION) String token) {
-        if (!auth.hasRole(token, "admin")) {
-            return ResponseEntity.status(403).body("Acceso denegado: Se requiere rol de administrador");
-        }
-        try {
-            String response = webClient.patch()
-                    .uri("https://userspf-production.up.railway.app/users/update/" + id)
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .bodyValue(user)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error interno al actualizar usuario: " + e.getMessage());
-        }
-    }
-
-    @PatchMapping("/users/delete/{id}")
-    public ResponseEntity<String> deleteUser(
-            @PathVariable Long id,
-            @RequestHeader(HttpHeaders.AUTHORIZATION) String token) {
-        if (!auth.hasRole(token, "admin")) {
-            return ResponseEntity.status(403).body("Acceso denegado: Se requiere rol de administrador");
-        }
-        try {
-            String response = webClient.patch()
-                    .uri("https://userspf-production.up.railway.app/users/deleteUser/" + id)
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error interno al eliminar usuario: " + e.getMessage());
-        }
-    }
-
-    @PostMapping("/users/login")
-    public ResponseEntity<String> login(
-            @RequestBody User user,
-            @RequestHeader(HttpHeaders.AUTHORIZATION) String token) {
-        try {
-            String response = webClient.post()
-                    .uri("https://userspf-production.up.railway.app/users/login")
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .bodyValue(user)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error interno al iniciar sesión: " + e.getMessage());
-        }
-    }
-
-    @PostMapping("/users/password")
-    public ResponseEntity<String> recoverPassword(
-            @RequestBody String emailJson) {
-        try {
-            String response = webClient.post()
-                    .uri("https://userspf-production.up.railway.app/users/password")
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                    .bodyValue(emailJson)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error interno al procesar recuperación de contraseña: " + e.getMessage());
-        }
-    }
-
-    // ---------- CLIENTS ----------
-
-    @PostMapping("/clients")
-    public ResponseEntity<String> createClient(
-            @RequestBody Client client,
-            @RequestHeader(HttpHeaders.AUTHORIZATION) String token) {
-        try {
-            if (auth.validateToken(token) == null) {
-                return ResponseEntity.status(401).body("Token inválido o expirado");
-            }
-            String response = webClient.post()
-                    .uri("https://clientspf-production.up.railway.app/clients/createClient")
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .bodyValue(client)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error interno al crear cliente: " + e.getMessage());
-        }
-    }
-
-    @GetMapping("/clients")
-    public ResponseEntity<String> getAllClients(
-            @RequestHeader(HttpHeaders.AUTHORIZATION) String token) {
-        if (!auth.hasRole(token, "admin")) {
-            return ResponseEntity.status(403).body("Acceso denegado: Se requiere rol de administrador");
-        }
-        try {
-            List<Client> clients = webClient.get()
-                    .uri("https://clientspf-production.up.railway.app/clients/getClients")
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .retrieve()
-                    .bodyToMono(new ParameterizedTypeReference<List<Client>>() {})
-                    .block();
-            return ResponseEntity.ok(objectMapper.writeValueAsString(clients));
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error interno: " + e.getMessage());
-        }
-    }
-
-    @GetMapping("/clients/{id}")
-    public ResponseEntity<String> getClientById(
-            @PathVariable Long id,
-            @RequestHeader(HttpHeaders.AUTHORIZATION) String token) {
-        if (!auth.hasRole(token, "admin")) {
-            return ResponseEntity.status(403).body("Acceso denegado: Se requiere rol de administrador");
-        }
-        try {
-            String response = webClient.get()
-                    .uri("https://clientspf-production.up.railway.app/clients/getClientid/" + id)
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error interno al obtener cliente: " + e.getMessage());
-        }
-    }
-
-    @PutMapping("/clients/update/{id}")
-    public ResponseEntity<String> updateClient(
-            @PathVariable Long id,
-            @RequestBody Client client,
-            @RequestHeader(HttpHeaders.AUTHORIZATION) String token) {
-        if (!auth.hasRole(token, "admin")) {
-            return ResponseEntity.status(403).body("Acceso denegado: Se requiere rol de administrador");
-        }
-        try {
-            String response = webClient.put()
-                    .uri("https://clientspf-production.up.railway.app/clients/updateClient/" + id)
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .bodyValue(client)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error interno al actualizar cliente: " + e.getMessage());
-        }
-    }
-
-    @PatchMapping("/clients/delete/{id}")
-    public ResponseEntity<String> deleteClient(
-            @PathVariable Long id,
-            @RequestHeader(HttpHeaders.AUTHORIZATION) String token) {
-        if (!auth.hasRole(token, "admin")) {
-            return ResponseEntity.status(403).body("Acceso denegado: Se requiere rol de administrador");
-        }
-        try {
-            String response = webClient.patch()
-                    .uri("https://clientspf-production.up.railway.app/clients/deleteClient/" + id)
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error interno al eliminar cliente: " + e.getMessage());
-        }
-    }
-
-    // ---------- PRODUCTS ----------
-
-    @PostMapping("/products")
-    public ResponseEntity<String> createProduct(
-            @RequestBody Product product,
-            @RequestHeader(HttpHeaders.AUTHORIZATION) String token) {
-        if (!auth.hasRole(token, "admin", "seller")) {
-            return ResponseEntity.status(403).body("Acceso denegado: Se requiere rol de admin o seller");
-        }
-        try {
-            String response = webClient.post()
-                    .uri("https://productspf-production.up.railway.app/products/newProduct")
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .bodyValue(product)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error interno al crear producto: " + e.getMessage());
-        }
-    }
-
-    @GetMapping("/products")
-    public ResponseEntity<String> getAllProducts(
-            @RequestHeader(HttpHeaders.AUTHORIZATION) String token) {
-        if (auth.validateToken(token) == null) {
-            return ResponseEntity.status(401).body("Token inválido o expirado");
-        }
-        try {
-            List<Product> products = webClient.get()
-                    .uri("https://productspf-production.up.railway.app/products/allProducts")
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .retrieve()
-                    .bodyToMono(new ParameterizedTypeReference<List<Product>>() {})
-                    .block();
-            return ResponseEntity.ok(objectMapper.writeValueAsString(products));
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error interno al obtener productos: " + e.getMessage());
-        }
-    }
-
-    @PatchMapping("/products/update/{id}")
-    public ResponseEntity<String> updateProduct(
-            @PathVariable Long id,
-            @RequestBody Product product,
-            @RequestHeader(HttpHeaders.AUTHORIZATION) String token) {
-        if (!auth.hasRole(token, "admin", "seller")) {
-            return ResponseEntity.status(403).body("Acceso denegado: Se requiere rol de admin o seller");
-        }
-        try {
-            String response = webClient.patch()
-                    .uri("https://productspf-production.up.railway.app/products/updateProduct/" + id)
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .bodyValue(product)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error interno al actualizar producto: " + e.getMessage());
-        }
-    }
-
-    @PatchMapping("/products/delete/{id}")
-    public ResponseEntity<String> deleteProduct(
-            @PathVariable Long id,
-            @RequestHeader(HttpHeaders.AUTHORIZATION) String token) {
-        if (!auth.hasRole(token, "admin")) {
-            return ResponseEntity.status(403).body("Acceso denegado: Se requiere rol de administrador");
-        }
-        try {
-            String response = webClient.patch()
-                    .uri("https://productspf-production.up.railway.app/products/deleteProduct/" + id)
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error interno al dar de baja el producto: " + e.getMessage());
-        }
-    }
-
-    // ---------- PAYMENTS ----------
-
-    @PostMapping("/payments/create-order")
-    public ResponseEntity<String> createOrder(
-            @RequestBody CreateOrderRequest orderRequest,
-            @RequestHeader(HttpHeaders.AUTHORIZATION) String token) {
-        if (auth.validateToken(token) == null) {
-            return ResponseEntity.status(401).body("Token inválido o expirado");
-        }
-        try {
-            String response = webClient.post()
-                    .uri("https://payment-production-bec3.up.railway.app/api/payments/create-order")
-                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                    .header(HttpHeaders.AUTHORIZATION, token)
-                    .bodyValue(orderRequest)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error interno al crear la orden: " + e.getMessage());
-        }
+    static final String BASE_PATH = "/app/esb";
+    // "/", "app", "/", "esb"
+    private static final int BASE_PATH_ELEMENTS = PathContainer.parsePath(BASE_PATH).elements().size();
+
+    private final RouteDispatcher routeDispatcher;
+    private final BatchDispatcher batchDispatcher;
+    private final OrderViewAssembler orderViewAssembler;
+    private final HandlerExecutor handlerExecutor;
+    private final WriteBehindQueue writeBehindQueue;
+    private final ClientAddressResolver clientAddressResolver;
+
+    public ESBController(RouteDispatcher routeDispatcher, BatchDispatcher batchDispatcher,
+                         OrderViewAssembler orderViewAssembler, HandlerExecutor handlerExecutor,
+                         WriteBehindQueue writeBehindQueue, ClientAddressResolver clientAddressResolver) {
+        this.routeDispatcher = routeDispatcher;
+        this.batchDispatcher = batchDispatcher;
+        this.orderViewAssembler = orderViewAssembler;
+        this.handlerExecutor = handlerExecutor;
+        this.writeBehindQueue = writeBehindQueue;
+        this.clientAddressResolver = clientAddressResolver;
+    }
+
+    // Varias subpeticiones en una sola llamada, con el token validado una vez
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> batch(ServerHttpRequest request,
+                                                        @RequestBody List<BatchItem> items) {
+        String token = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        return handlerExecutor.execute(() -> batchDispatcher.dispatch(token, items, request.getHeaders(),
+                clientAddressResolver.resolve(request)));
+    }
+
+    // Usuario, cliente y producto de una orden en un solo documento
+    @GetMapping("/orders/view")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> orderView(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String token,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) String clientId,
+            @RequestParam(required = false) String productId) {
+        return handlerExecutor.execute(() -> orderViewAssembler.view(token, userId, clientId, productId));
+    }
+
+    // Valida la orden contra el producto y la crea en payments
+    @PostMapping("/orders/checkout")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> checkout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String token,
+            @RequestBody CheckoutRequest request) {
+        return handlerExecutor.execute(() -> orderViewAssembler.checkout(token, request));
+    }
+
+    // Estado de una escritura aceptada con "Prefer: respond-async"
+    @GetMapping("/jobs/{id}")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> job(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String token,
+            @PathVariable String id) {
+        return writeBehindQueue.status(token, id);
+    }
+
+    @RequestMapping("/**")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> proxy(ServerHttpRequest request) {
+        PathContainer path = request.getPath().pathWithinApplication().subPath(BASE_PATH_ELEMENTS);
+        String token = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        return readBody(request)
+                .flatMap(body -> handlerExecutor.execute(() -> routeDispatcher.dispatch(GatewayRequest.builder()
+                        .method(request.getMethod())
+                        .path(path)
+                        .token(token)
+                        .body(body)
+                        .headers(request.getHeaders())
+                        .queryParams(request.getQueryParams())
+                        .remoteAddress(clientAddressResolver.resolve(request))
+                        .build())));
+    }
+
+    private static Mono<byte[]> readBody(ServerHttpRequest request) {
+        return DataBufferUtils.join(request.getBody())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0]);
     }
 }
@@ -0,0 +1,9 @@
+package com.utd.ti.soa.esb_service.idempotency;
+
+// La clave de idempotencia ya se usó con una petición distinta (otro cuerpo u otra ruta)
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException() {
+        super("La clave de idempotencia ya se usó con otra petición", null, false, false);
+    }
+}
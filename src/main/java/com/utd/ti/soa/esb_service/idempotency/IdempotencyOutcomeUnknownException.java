@@ -0,0 +1,12 @@
+package com.utd.ti.soa.esb_service.idempotency;
+
+// La petición original con esta clave terminó en timeout o error del microservicio: pudo aplicarse o no,
+// así que no se vuelve a ejecutar hasta que la clave caduque
+public class IdempotencyOutcomeUnknownException extends RuntimeException {
+
+    public IdempotencyOutcomeUnknownException() {
+        super("El resultado de la petición original con esta clave es desconocido (timeout o error del microservicio); "
+                + "no se repite con la misma clave hasta que caduque",
+                null, false, false);
+    }
+}
@@ -0,0 +1,21 @@
+package com.utd.ti.soa.esb_service.idempotency;
+
+import java.util.function.Supplier;
+
+import org.springframework.http.ResponseEntity;
+
+import reactor.core.publisher.Mono;
+
+// Respuestas de las escrituras por clave de idempotencia. La implementación en memoria sirve para una sola instancia;
+// un almacén compartido (p. ej. Redis) la sustituye declarando su propio bean @Primary
+public interface IdempotencyStore {
+
+    // Solo la primera petición con la clave ejecuta call: las simultáneas esperan su resultado y las posteriores lo
+    // reciben del almacén. fingerprint identifica la petición; si no coincide con el de la clave se emite
+    // IdempotencyKeyReusedException. call solo emite error si no llegó a contactar al microservicio: entonces la clave
+    // se libera para reintentar. Las respuestas 2xx y 4xx son definitivas y se repiten tal cual; tras una 5xx (timeout,
+    // error del microservicio) la escritura pudo aplicarse,
+    // y las peticiones posteriores reciben IdempotencyOutcomeUnknownException hasta que la clave caduque.
+    // Si el almacén está lleno de llamadas en curso, una clave nueva recibe IdempotencyStoreFullException
+    Mono<IdempotentResponse> execute(String key, String fingerprint, Supplier<Mono<ResponseEntity<byte[]>>> call);
+}
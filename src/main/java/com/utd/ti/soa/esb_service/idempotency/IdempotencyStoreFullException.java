@@ -0,0 +1,9 @@
+package com.utd.ti.soa.esb_service.idempotency;
+
+// Todas las claves del almacén tienen su llamada en curso: no se admiten claves nuevas hasta que alguna termine
+public class IdempotencyStoreFullException extends RuntimeException {
+
+    public IdempotencyStoreFullException() {
+        super("Demasiadas escrituras en curso; intente de nuevo en unos segundos", null, false, false);
+    }
+}
@@ -0,0 +1,17 @@
+package com.utd.ti.soa.esb_service.idempotency;
+
+import org.springframework.http.ResponseEntity;
+
+import lombok.Getter;
+
+@Getter
+public class IdempotentResponse {
+    private final ResponseEntity<byte[]> response;
+    // true si no se llamó al microservicio para esta petición
+    private final boolean replayed;
+
+    public IdempotentResponse(ResponseEntity<byte[]> response, boolean replayed) {
+        this.response = response;
+        this.replayed = replayed;
+    }
+}
@@ -0,0 +1,143 @@
+package com.utd.ti.soa.esb_service.idempotency;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.utd.ti.soa.esb_service.config.IdempotencyProperties;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+// Almacén acotado a esb.idempotency.max-entries claves, en orden de llegada: se descartan las caducadas y, si sigue
+// lleno, la terminada más antigua. Una clave con la llamada en curso nunca se descarta
+@Component
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final IdempotencyProperties properties;
+    private final LinkedHashMap<String, Entry> entries;
+
+    public InMemoryIdempotencyStore(IdempotencyProperties properties) {
+        this.properties = properties;
+        this.entries = new LinkedHashMap<>();
+    }
+
+    @Override
+    public Mono<IdempotentResponse> execute(String key, String fingerprint,
+                                            Supplier<Mono<ResponseEntity<byte[]>>> call) {
+        return Mono.defer(() -> {
+            Entry entry;
+            boolean owner = false;
+            synchronized (entries) {
+                entry = entries.get(key);
+                if (entry != null && entry.expired(System.currentTimeMillis())) {
+                    entries.remove(key);
+                    entry = null;
+                }
+                if (entry == null) {
+                    if (!makeRoom()) {
+                        return Mono.error(new IdempotencyStoreFullException());
+                    }
+                    entry = new Entry(fingerprint);
+                    entries.put(key, entry);
+                    owner = true;
+                }
+            }
+            if (!entry.fingerprint.equals(fingerprint)) {
+                return Mono.error(new IdempotencyKeyReusedException());
+            }
+            if (entry.unknown) {
+                return Mono.error(new IdempotencyOutcomeUnknownException());
+            }
+            if (owner) {
+                start(key, entry, call);
+            }
+            boolean replayed = !owner;
+            return entry.result.asMono().map(response -> new IdempotentResponse(response, replayed));
+        });
+    }
+
+    // Antes de cada clave nueva se descartan las caducadas del principio; si sigue lleno, la terminada más antigua
+    private boolean makeRoom() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (oldest.hasNext()) {
+            Entry entry = oldest.next();
+            if (!entry.expired(now)) {
+                break;
+            }
+            oldest.remove();
+        }
+        if (entries.size() < properties.getMaxEntries()) {
+            return true;
+        }
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            if (!it.next().inFlight()) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // La llamada no depende de quien la pidió: si el cliente se desconecta, la escritura termina y queda guardada.
+    // Un 5xx se guarda como resultado desconocido: las peticiones que ya esperaban lo reciben, las siguientes un 409
+    private void start(String key, Entry entry, Supplier<Mono<ResponseEntity<byte[]>>> call) {
+        Mono.defer(call).subscribe(
+                response -> {
+                    entry.unknown = response.getStatusCode().is5xxServerError();
+                    entry.expiresAt = System.currentTimeMillis() + properties.getTtl().toMillis();
+                    entry.result.tryEmitValue(response);
+                },
+                // No llegó al microservicio: la clave queda libre para reintentar
+                error -> {
+                    discard(key, entry);
+                    entry.result.tryEmitError(error);
+                },
+                () -> {
+                    // Completó sin respuesta: no hay nada que guardar
+                    if (entry.result.tryEmitError(new IllegalStateException("El microservicio no devolvió respuesta"))
+                            .isSuccess()) {
+                        discard(key, entry);
+                    }
+                });
+    }
+
+    private void discard(String key, Entry entry) {
+        synchronized (entries) {
+            entries.remove(key, entry);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        // Una sola emisión que reciben la petición original y todas las repetidas
+        private final Sinks.One<ResponseEntity<byte[]>> result = Sinks.one();
+        // Mientras la llamada está en curso la entrada no caduca
+        private volatile long expiresAt = Long.MAX_VALUE;
+        private volatile boolean unknown;
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private boolean expired(long now) {
+            return expiresAt <= now;
+        }
+
+        private boolean inFlight() {
+            return expiresAt == Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.utd.ti.soa.esb_service.metrics;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+import com.utd.ti.soa.esb_service.utils.Auth;
+import com.utd.ti.soa.esb_service.utils.ResponseCache;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Métricas del ESB por ruta y por microservicio (se publican en /actuator/prometheus):
+//   esb.route.requests      latencia total vista por el cliente, por ruta, método y estado
+//   esb.route.upstream      parte de esa latencia pasada con el microservicio, hasta el último byte de su cuerpo
+//   esb.route.overhead      el resto: autorización, cuerpo, caché, filtrado y escritura en el ESB
+//   esb.route.inflight      peticiones en curso por ruta
+//   esb.upstream.requests   llamadas a cada microservicio hasta terminar de recibir su cuerpo, por estado
+//   esb.upstream.inflight   llamadas en curso por microservicio
+//   esb.auth.verification   validación de tokens (incluida la caché de tokens verificados)
+@Component
+public class GatewayMetrics {
+
+    public static final String UNMATCHED_ROUTE = "unmatched";
+
+    private final MeterRegistry registry;
+    private final Map<String, AtomicInteger> routeInFlight = new ConcurrentHashMap<>();
+
+    public GatewayMetrics(MeterRegistry registry, Auth auth, ResponseCache responseCache) {
+        this.registry = registry;
+        FunctionCounter.builder("esb.auth.cache", auth, Auth::getCacheHits).tag("result", "hit").register(registry);
+        FunctionCounter.builder("esb.auth.cache", auth, Auth::getCacheMisses).tag("result", "miss").register(registry);
+        FunctionCounter.builder("esb.response.cache", responseCache, ResponseCache::getHits)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("esb.response.cache", responseCache, ResponseCache::getMisses)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("esb.response.cache", responseCache, ResponseCache::getRevalidations)
+                .tag("result", "revalidated").register(registry);
+    }
+
+    public RequestTiming start(String route, HttpMethod method) {
+        AtomicInteger inFlight = routeInFlight.computeIfAbsent(route, id -> {
+            AtomicInteger counter = new AtomicInteger();
+            Gauge.builder("esb.route.inflight", counter, AtomicInteger::get).tag("route", id).register(registry);
+            return counter;
+        });
+        return new RequestTiming(route, method.name(), inFlight);
+    }
+
+    // La petición termina cuando se termina de escribir (o se abandona) el cuerpo de la respuesta
+    public Mono<ResponseEntity<Flux<DataBuffer>>> observe(RequestTiming timing,
+                                                          Mono<ResponseEntity<Flux<DataBuffer>>> response) {
+        return response
+                .map(entity -> {
+                    int status = entity.getStatusCode().value();
+                    if (entity.getBody() == null) {
+                        finish(timing, status);
+                        return entity;
+                    }
+                    return new ResponseEntity<>(entity.getBody().doFinally(signal -> finish(timing, status)),
+                            entity.getHeaders(), entity.getStatusCode());
+                })
+                .doOnError(e -> finish(timing, 500))
+                .doOnCancel(() -> finish(timing, 499));
+    }
+
+    private void finish(RequestTiming timing, int status) {
+        if (!timing.finish()) {
+            return;
+        }
+        long total = System.nanoTime() - timing.getStartNanos();
+        long upstream = Math.min(timing.getUpstreamNanos(), total);
+        registry.timer("esb.route.requests", "route", timing.getRoute(), "method", timing.getMethod(),
+                "status", Integer.toString(status)).record(total, TimeUnit.NANOSECONDS);
+        if (upstream > 0) {
+            registry.timer("esb.route.upstream", "route", timing.getRoute()).record(upstream, TimeUnit.NANOSECONDS);
+        }
+        registry.timer("esb.route.overhead", "route", timing.getRoute()).record(total - upstream, TimeUnit.NANOSECONDS);
+    }
+
+    public Claims timeAuth(Supplier<Claims> verification) {
+        long start = System.nanoTime();
+        Claims claims = verification.get();
+        registry.timer("esb.auth.verification", "result", claims != null ? "valid" : "invalid")
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return claims;
+    }
+
+    // Se coloca por dentro del circuit breaker y el bulkhead: solo mide llamadas que sí salen hacia el upstream.
+    // La llamada termina con su cuerpo (completo, con error o abandonado), también en las respuestas retransmitidas;
+    // se cierra antes de propagar la señal, para que la ruta ya la encuentre sumada al terminar
+    public ExchangeFilterFunction upstreamFilter(String service, String baseUrl) {
+        String host = URI.create(baseUrl).getHost();
+        AtomicInteger inFlight = new AtomicInteger();
+        Gauge.builder("esb.upstream.inflight", inFlight, AtomicInteger::get)
+                .tags("service", service, "host", host)
+                .register(registry);
+
+        return (request, next) -> Mono.defer(() -> {
+            RequestTiming timing = (RequestTiming) request.attribute(RequestTiming.ATTRIBUTE).orElse(null);
+            AtomicReference<String> outcome = new AtomicReference<>("CANCELLED");
+            AtomicBoolean finished = new AtomicBoolean();
+            long start = System.nanoTime();
+            inFlight.incrementAndGet();
+            if (timing != null) {
+                timing.upstreamStarted(start);
+            }
+            Runnable finish = () -> {
+                if (!finished.compareAndSet(false, true)) {
+                    return;
+                }
+                inFlight.decrementAndGet();
+                long end = System.nanoTime();
+                if (timing != null) {
+                    timing.upstreamFinished(end);
+                }
+                Timer.builder("esb.upstream.requests")
+                        .tags("service", service, "host", host, "status", outcome.get())
+                        .register(registry)
+                        .record(end - start, TimeUnit.NANOSECONDS);
+            };
+            return next.exchange(request)
+                    .map(response -> {
+                        outcome.set(Integer.toString(response.statusCode().value()));
+                        return response.mutate()
+                                .body(body -> body
+                                        .doOnTerminate(finish)
+                                        .doOnCancel(finish))
+                                .build();
+                    })
+                    .doOnError(e -> {
+                        outcome.set("ERROR");
+                        finish.run();
+                    })
+                    .doOnCancel(() -> {
+                        // Tras llegar la respuesta la llamada sigue abierta hasta su cuerpo
+                        if ("CANCELLED".equals(outcome.get())) {
+                            finish.run();
+                        }
+                    });
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package com.utd.ti.soa.esb_service.metrics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Estado de medición de una petición al ESB; el filtro del WebClient le suma el tiempo pasado en el upstream.
+// Con reintentos o peticiones de cobertura puede haber varias llamadas a la vez: cuenta el tiempo con alguna en curso
+public class RequestTiming {
+
+    // Atributo del WebClient con el que el filtro de métricas encuentra la medición de la petición
+    public static final String ATTRIBUTE = RequestTiming.class.getName();
+
+    private final String route;
+    private final String method;
+    private final long startNanos;
+    private final AtomicInteger inFlight;
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private long upstreamNanos;
+    private int activeUpstreamCalls;
+    private long upstreamBusySince;
+
+    RequestTiming(String route, String method, AtomicInteger inFlight) {
+        this.route = route;
+        this.method = method;
+        this.inFlight = inFlight;
+        this.startNanos = System.nanoTime();
+        inFlight.incrementAndGet();
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    String getMethod() {
+        return method;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    synchronized long getUpstreamNanos() {
+        return upstreamNanos;
+    }
+
+    synchronized void upstreamStarted(long nanos) {
+        if (activeUpstreamCalls++ == 0) {
+            upstreamBusySince = nanos;
+        }
+    }
+
+    synchronized void upstreamFinished(long nanos) {
+        if (--activeUpstreamCalls == 0) {
+            upstreamNanos += nanos - upstreamBusySince;
+        }
+    }
+
+    // Solo la primera terminación (fin del cuerpo, error o cancelación) cuenta
+    boolean finish() {
+        if (finished.compareAndSet(false, true)) {
+            inFlight.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+}
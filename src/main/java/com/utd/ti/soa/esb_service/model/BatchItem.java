@@ -0,0 +1,17 @@
+package com.utd.ti.soa.esb_service.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Una subpetición de /app/esb/batch; path es relativo a /app/esb, p. ej. "/clients/7"
+@Getter
+@Setter
+@NoArgsConstructor
+public class BatchItem {
+    private String method;
+    private String path;
+    private JsonNode body;
+}
@@ -0,0 +1,19 @@
+package com.utd.ti.soa.esb_service.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Cuerpo de /app/esb/orders/checkout: la orden que se envía a payments más lo necesario para validarla
+@Getter
+@Setter
+@NoArgsConstructor
+public class CheckoutRequest {
+    private Integer userId;
+    private String clientId;
+    private String productId;
+    private int quantity = 1;
+    // Si se omite se calcula con el precio del producto
+    private Double amount;
+    private String currency = "mxn";
+}
@@ -0,0 +1,123 @@
+package com.utd.ti.soa.esb_service.resilience;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import com.utd.ti.soa.esb_service.config.RateLimitProperties;
+
+// Cubeta de tokens por ruta y cliente, sin bloqueos: cada cubeta es un único AtomicLong que se actualiza con CAS
+// y el mapa de cubetas es un ConcurrentHashMap, de modo que clientes distintos nunca compiten entre sí.
+// Las cubetas inactivas se descartan en segundo plano; con la tabla llena los clientes nuevos comparten una cubeta
+@Component
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimiter implements DisposableBean {
+
+    public static final String ANONYMOUS = "anonymous";
+    private static final String ANY_ROLE = "*";
+    private static final String OVERFLOW = "overflow:";
+
+    private final RateLimitProperties properties;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+
+    public RateLimiter(RateLimitProperties properties) {
+        this.properties = properties;
+        long interval = Math.max(1, properties.getSweepInterval().toMillis());
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("esb-rate-limit-sweep").daemon().factory());
+        sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    // 0 si la petición se admite; si no, los nanosegundos que faltan para que la cubeta tenga un token
+    public long tryAcquire(String route, String role, String client) {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        String limitRole = role != null ? role : ANONYMOUS;
+        RateLimitProperties.Limit limit = limit(route, limitRole);
+        if (limit.getPerSecond() <= 0) {
+            return 0;
+        }
+        String key = route + "|" + client;
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            // Sin sitio hasta el próximo barrido: todos los clientes nuevos de la ruta y el rol gastan la misma cubeta
+            if (buckets.size() >= properties.getMaxKeys()) {
+                key = route + "|" + OVERFLOW + limitRole;
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(limit));
+        }
+        return bucket.tryAcquire(System.nanoTime());
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdownNow();
+    }
+
+    private RateLimitProperties.Limit limit(String route, String role) {
+        Map<String, RateLimitProperties.Limit> byRole = properties.getRoutes().get(route);
+        if (byRole != null) {
+            RateLimitProperties.Limit limit = byRole.get(role);
+            if (limit == null) {
+                limit = byRole.get(ANY_ROLE);
+            }
+            if (limit != null) {
+                return limit;
+            }
+        }
+        return properties.getDefaultLimit();
+    }
+
+    // Una cubeta llena no guarda nada que no tendría una nueva: se puede descartar sin cambiar el resultado
+    void sweep() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.full(now));
+    }
+
+    // GCRA: en lugar de contar tokens se guarda el instante teórico en que la cubeta vuelve a estar vacía de deuda;
+    // equivale a una cubeta de "capacity" tokens que recupera perSecond por segundo
+    private static final class Bucket {
+        // Nanosegundos que tarda en recuperarse un token
+        private final long interval;
+        // Adelanto máximo sobre el reloj: capacity tokens
+        private final long burst;
+        private final AtomicLong theoreticalArrival;
+
+        private Bucket(RateLimitProperties.Limit limit) {
+            this.interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / limit.getPerSecond()));
+            this.burst = interval * Math.max(1, limit.getCapacity());
+            this.theoreticalArrival = new AtomicLong(System.nanoTime());
+        }
+
+        private long tryAcquire(long now) {
+            while (true) {
+                long current = theoreticalArrival.get();
+                long next = Math.max(current, now) + interval;
+                long wait = next - now - burst;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        private boolean full(long now) {
+            return theoreticalArrival.get() - now <= 0;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.utd.ti.soa.esb_service.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+import com.utd.ti.soa.esb_service.config.UpstreamProperties;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+// Circuit breaker y bulkhead por microservicio, aplicados como filtro del WebClient de cada uno
+@Slf4j
+@Component
+public class UpstreamGuards {
+
+    private final CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+    private final BulkheadRegistry bulkheads = BulkheadRegistry.ofDefaults();
+    private final MeterRegistry meterRegistry;
+
+    public UpstreamGuards(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        // resilience4j.circuitbreaker.state, .calls, .not.permitted.calls y resilience4j.bulkhead.*
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+    }
+
+    public ExchangeFilterFunction filterFor(String service, UpstreamProperties.Service properties) {
+        CircuitBreaker circuitBreaker = properties.getCircuitBreaker().isEnabled()
+                ? circuitBreaker(service, properties.getCircuitBreaker())
+                : null;
+        Bulkhead bulkhead = properties.getBulkhead().isEnabled()
+                ? bulkhead(service, properties.getBulkhead())
+                : null;
+
+        return (request, next) -> {
+            Mono<ClientResponse> exchange = next.exchange(request);
+            if (circuitBreaker != null) {
+                exchange = exchange.transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+            }
+            if (bulkhead != null) {
+                exchange = withPermit(bulkhead, exchange);
+            }
+            return exchange
+                    .onErrorMap(CallNotPermittedException.class, e -> rejected(service, "circuit-breaker", e))
+                    .onErrorMap(BulkheadFullException.class, e -> rejected(service, "bulkhead", e));
+        };
+    }
+
+    // El permiso se libera al terminar (o abandonarse) el cuerpo retransmitido, no al llegar las cabeceras
+    private Mono<ClientResponse> withPermit(Bulkhead bulkhead, Mono<ClientResponse> exchange) {
+        return Mono.defer(() -> {
+            if (!bulkhead.tryAcquirePermission()) {
+                return Mono.error(BulkheadFullException.createBulkheadFullException(bulkhead));
+            }
+            AtomicBoolean responded = new AtomicBoolean();
+            AtomicBoolean released = new AtomicBoolean();
+            Runnable release = () -> {
+                if (released.compareAndSet(false, true)) {
+                    bulkhead.onComplete();
+                }
+            };
+            return exchange
+                    .map(response -> {
+                        responded.set(true);
+                        return response.mutate()
+                                .body(body -> body
+                                        .doOnTerminate(release)
+                                        .doOnCancel(release))
+                                .build();
+                    })
+                    .doOnError(e -> release.run())
+                    .doOnCancel(() -> {
+                        if (!responded.get()) {
+                            release.run();
+                        }
+                    });
+        });
+    }
+
+    public CircuitBreaker.State state(String service) {
+        return circuitBreakers.circuitBreaker(service).getState();
+    }
+
+    private CircuitBreaker circuitBreaker(String service, UpstreamProperties.CircuitBreaker properties) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(properties.getFailureRateThreshold())
+                .slowCallRateThreshold(properties.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(properties.getSlowCallDurationThreshold())
+                .slidingWindowSize(properties.getSlidingWindowSize())
+                .minimumNumberOfCalls(properties.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(properties.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(properties.getPermittedCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                // Un 5xx del microservicio también cuenta como fallo aunque no sea una excepción
+                .recordResult(result -> result instanceof ClientResponse response
+                        && response.statusCode().is5xxServerError())
+                .build();
+        CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(service, config);
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("Circuit breaker {}: {}", service, event.getStateTransition()));
+        return circuitBreaker;
+    }
+
+    private Bulkhead bulkhead(String service, UpstreamProperties.Bulkhead properties) {
+        // Sin espera: en el event loop no se puede bloquear aguardando un permiso
+        BulkheadConfig config = BulkheadConfig.custom()
+                .maxConcurrentCalls(properties.getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build();
+        return bulkheads.bulkhead(service, config);
+    }
+
+    private UpstreamUnavailableException rejected(String service, String reason, Throwable cause) {
+        meterRegistry.counter("esb.upstream.rejections", "service", service, "reason", reason).increment();
+        return new UpstreamUnavailableException(service, reason, cause);
+    }
+}
@@ -0,0 +1,192 @@
+package com.utd.ti.soa.esb_service.resilience;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.utd.ti.soa.esb_service.config.RetryProperties;
+import com.utd.ti.soa.esb_service.routing.Route;
+import com.utd.ti.soa.esb_service.routing.RouteTable;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+// Reintentos con backoff exponencial y jitter, y peticiones de cobertura, para las rutas GET de esb.retry.
+// Va por fuera del circuit breaker: con el circuito abierto no se reintenta
+@Component
+@EnableConfigurationProperties(RetryProperties.class)
+public class UpstreamRetry {
+
+    // Muestras de latencia que se guardan por ruta y mínimo para fiarse del percentil
+    private static final int WINDOW = 256;
+    private static final int MIN_SAMPLES = 20;
+
+    private final Map<String, Policy> policies = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    // Reintentar o duplicar una escritura no es seguro: una política sobre una ruta que no es GET impide arrancar
+    public UpstreamRetry(RetryProperties properties, RouteTable routeTable, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        properties.getRoutes().forEach((id, policy) -> {
+            Route route = routeTable.get(id);
+            if (route == null) {
+                throw new IllegalStateException("Ruta desconocida en esb.retry: " + id);
+            }
+            if (route.getMethod() != HttpMethod.GET || route.getUpstreamMethod() != HttpMethod.GET) {
+                throw new IllegalStateException("esb.retry solo admite rutas GET: " + id);
+            }
+            policies.put(id, new Policy(id, policy));
+        });
+    }
+
+    public <T> Mono<T> apply(String route, Supplier<Mono<T>> call) {
+        Policy policy = policies.get(route);
+        if (policy == null) {
+            return Mono.defer(call);
+        }
+        Mono<T> attempt = policy.settings.isHedge() ? hedged(policy, call) : timed(policy, call);
+        if (policy.settings.getMaxAttempts() <= 1) {
+            return attempt;
+        }
+        return attempt.retryWhen(Retry.backoff(policy.settings.getMaxAttempts() - 1, policy.settings.getInitialBackoff())
+                .maxBackoff(policy.settings.getMaxBackoff())
+                .jitter(0.5)
+                .filter(e -> retryable(policy, e))
+                .doBeforeRetry(signal -> policy.retries.increment())
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    // El segundo intento solo sale si el primero sigue sin responder pasado el retardo; si para entonces ya falló,
+    // decide la política de reintentos. Gana el primero que responda y el otro se cancela
+    private <T> Mono<T> hedged(Policy policy, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            Sinks.One<Boolean> primaryFailed = Sinks.one();
+            Mono<T> primary = timed(policy, call).doOnError(e -> primaryFailed.tryEmitValue(true));
+            Mono<T> hedge = Mono.delay(policy.hedgeDelay())
+                    .takeUntilOther(primaryFailed.asMono())
+                    .flatMap(tick -> {
+                        policy.hedges.increment();
+                        return timed(policy, call);
+                    });
+            return Mono.firstWithValue(primary, hedge)
+                    .doOnDiscard(ResponseEntity.class, UpstreamRetry::releaseBody)
+                    .onErrorMap(NoSuchElementException.class, UpstreamRetry::firstFailure);
+        });
+    }
+
+    // Mide hasta que el intento emite: en las respuestas que se juntan es el cuerpo completo, en las que se
+    // retransmiten (forward y listados) solo las cabeceras, y la cobertura no cubre un cuerpo lento
+    private <T> Mono<T> timed(Policy policy, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.get().doOnNext(value -> policy.latencies.record(System.nanoTime() - start));
+        });
+    }
+
+    // Si los dos intentos responden casi a la vez, el cuerpo del descartado se consume para liberar la conexión
+    private static void releaseBody(ResponseEntity<?> response) {
+        if (response.getBody() instanceof Flux<?> body) {
+            body.subscribe(item -> {
+                if (item instanceof DataBuffer buffer) {
+                    DataBufferUtils.release(buffer);
+                }
+            }, error -> { });
+        }
+    }
+
+    // Si fallan los dos intentos, firstWithValue los junta; se propaga el del primero
+    private static Throwable firstFailure(NoSuchElementException e) {
+        Throwable composite = e.getCause() != null ? e.getCause()
+                : e.getSuppressed().length > 0 ? e.getSuppressed()[0] : null;
+        if (composite == null) {
+            return e;
+        }
+        List<Throwable> failures = Exceptions.unwrapMultiple(composite);
+        return failures.isEmpty() ? e : failures.get(0);
+    }
+
+    private static boolean retryable(Policy policy, Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return policy.settings.getRetryOn().contains(response.getStatusCode().value());
+        }
+        return e instanceof WebClientRequestException;
+    }
+
+    private final class Policy {
+        private final RetryProperties.Policy settings;
+        private final Counter retries;
+        private final Counter hedges;
+        private final LatencyWindow latencies = new LatencyWindow();
+
+        private Policy(String route, RetryProperties.Policy settings) {
+            this.settings = settings;
+            this.retries = Counter.builder("esb.route.retries").tag("route", route).register(meterRegistry);
+            this.hedges = Counter.builder("esb.route.hedges").tag("route", route).register(meterRegistry);
+        }
+
+        private Duration hedgeDelay() {
+            long percentile = latencies.percentile(settings.getHedgePercentile());
+            if (percentile < 0) {
+                return settings.getHedgeMaxDelay();
+            }
+            long min = settings.getHedgeMinDelay().toNanos();
+            long max = settings.getHedgeMaxDelay().toNanos();
+            return Duration.ofNanos(Math.max(min, Math.min(max, percentile)));
+        }
+    }
+
+    // Últimas WINDOW latencias en un anillo sin bloqueos; el percentil se recalcula cada WINDOW/8 muestras
+    private static final class LatencyWindow {
+        private final AtomicLongArray samples = new AtomicLongArray(WINDOW);
+        private final AtomicInteger count = new AtomicInteger();
+        private volatile double cachedPercentile = Double.NaN;
+        private volatile long cachedValue = -1;
+        private volatile int cachedAt = -1;
+
+        private void record(long nanos) {
+            int index = count.getAndIncrement();
+            samples.set(Math.floorMod(index, WINDOW), nanos);
+        }
+
+        private long percentile(double percentile) {
+            int recorded = count.get();
+            if (recorded < MIN_SAMPLES) {
+                return -1;
+            }
+            if (cachedPercentile == percentile && recorded - cachedAt < WINDOW / 8) {
+                return cachedValue;
+            }
+            int size = Math.min(recorded, WINDOW);
+            long[] sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = samples.get(i);
+            }
+            Arrays.sort(sorted);
+            long value = sorted[Math.min(size - 1, (int) Math.ceil(percentile * size) - 1)];
+            cachedValue = value;
+            cachedPercentile = percentile;
+            cachedAt = recorded;
+            return value;
+        }
+    }
+}
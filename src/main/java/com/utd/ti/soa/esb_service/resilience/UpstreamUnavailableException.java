@@ -0,0 +1,16 @@
+package com.utd.ti.soa.esb_service.resilience;
+
+// El ESB rechazó la llamada sin contactar al microservicio (circuito abierto o bulkhead lleno)
+public class UpstreamUnavailableException extends RuntimeException {
+
+    private final String service;
+
+    public UpstreamUnavailableException(String service, String reason, Throwable cause) {
+        super("Servicio " + service + " no disponible temporalmente (" + reason + ")", cause);
+        this.service = service;
+    }
+
+    public String getService() {
+        return service;
+    }
+}
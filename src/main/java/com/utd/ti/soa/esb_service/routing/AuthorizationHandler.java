@@ -0,0 +1,39 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// auth de la ruta: sin cabecera 400, token inválido 401 y rol no permitido 403
+@Component
+@Order(200)
+public class AuthorizationHandler implements RouteHandler {
+
+    @Override
+    public Mono<ResponseEntity<Flux<DataBuffer>>> handle(RouteExchange exchange, Chain chain) {
+        Route route = exchange.getRoute();
+        // Como antes de la tabla de rutas: sin la cabecera la petición es incorrecta (400), no no autorizada
+        if (route.getAuth() != RouteAuth.NONE && exchange.getRequest().getToken() == null) {
+            return Mono.just(RouteDispatcher.textResponse(400, "Falta la cabecera Authorization"));
+        }
+        switch (route.getAuth()) {
+            case TOKEN:
+                if (exchange.getClaims() == null) {
+                    return Mono.just(RouteDispatcher.textResponse(401, "Token inválido o expirado"));
+                }
+                break;
+            case ROLES:
+                if (exchange.getClaims() == null || !route.allows(exchange.role())) {
+                    return Mono.just(RouteDispatcher.textResponse(403, route.getDeniedMessage()));
+                }
+                break;
+            default:
+                break;
+        }
+        return chain.next(exchange);
+    }
+}
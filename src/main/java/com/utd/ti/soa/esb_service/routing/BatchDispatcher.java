@@ -0,0 +1,173 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.utd.ti.soa.esb_service.config.BatchProperties;
+import com.utd.ti.soa.esb_service.metrics.GatewayMetrics;
+import com.utd.ti.soa.esb_service.metrics.RequestTiming;
+import com.utd.ti.soa.esb_service.model.BatchItem;
+import com.utd.ti.soa.esb_service.utils.Auth;
+
+import io.jsonwebtoken.Claims;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Ejecuta un lote de subpeticiones con un único token: se valida una vez y cada subpetición pasa por su ruta
+@Component
+@EnableConfigurationProperties(BatchProperties.class)
+public class BatchDispatcher {
+
+    public static final String ROUTE_ID = "batch";
+    private static final String BASE_PATH = "/app/esb";
+
+    private final RouteDispatcher routeDispatcher;
+    private final Auth auth;
+    private final GatewayMetrics metrics;
+    private final ObjectMapper objectMapper;
+    private final BatchProperties properties;
+
+    public BatchDispatcher(RouteDispatcher routeDispatcher, Auth auth, GatewayMetrics metrics,
+                           ObjectMapper objectMapper, BatchProperties properties) {
+        this.routeDispatcher = routeDispatcher;
+        this.auth = auth;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    // Responde 200 con [{"status":..., "body":...}] en el mismo orden del lote, aunque alguna subpetición falle.
+    // Cada subpetición lleva la IP y las cabeceras del lote: los límites por IP (login, recover-password) siguen aplicando
+    public Mono<ResponseEntity<Flux<DataBuffer>>> dispatch(String token, List<BatchItem> items, HttpHeaders headers,
+                                                           String remoteAddress) {
+        if (items == null || items.isEmpty()) {
+            return Mono.just(RouteDispatcher.textResponse(400, "El lote no contiene peticiones"));
+        }
+        if (items.size() > properties.getMaxRequests()) {
+            return Mono.just(RouteDispatcher.textResponse(400,
+                    "El lote admite como máximo " + properties.getMaxRequests() + " peticiones"));
+        }
+
+        RequestTiming timing = metrics.start(ROUTE_ID, HttpMethod.POST);
+        Claims claims = token != null ? metrics.timeAuth(() -> auth.validateToken(token)) : null;
+        Supplier<Claims> verified = () -> claims;
+        HttpHeaders itemHeaders = itemHeaders(headers);
+
+        Mono<ResponseEntity<Flux<DataBuffer>>> response = Flux.fromIterable(items)
+                .flatMapSequential(item -> execute(item, token, itemHeaders, remoteAddress, verified), Math.max(1, properties.getMaxConcurrency()))
+                .collect(objectMapper::createArrayNode, ArrayNode::add)
+                .map(this::jsonResponse);
+        return metrics.observe(timing, response);
+    }
+
+    private Mono<ObjectNode> execute(BatchItem item, String token, HttpHeaders headers, String remoteAddress,
+                                     Supplier<Claims> verified) {
+        if (item == null || item.getMethod() == null || item.getPath() == null) {
+            return Mono.just(result(400, "Subpetición incompleta: se requieren method y path", false));
+        }
+        HttpMethod method = HttpMethod.valueOf(item.getMethod().toUpperCase(Locale.ROOT));
+        String path = item.getPath().startsWith(BASE_PATH + "/") ? item.getPath().substring(BASE_PATH.length()) : item.getPath();
+        byte[] body;
+        try {
+            body = body(item.getBody());
+        } catch (Exception e) {
+            return Mono.just(result(400, "Cuerpo de la petición inválido", false));
+        }
+
+        GatewayRequest request = GatewayRequest.builder()
+                .method(method)
+                .path(PathContainer.parsePath(path))
+                .token(token)
+                .body(body)
+                .headers(headers)
+                .remoteAddress(remoteAddress)
+                .build();
+        return routeDispatcher.dispatch(request, verified)
+                .flatMap(response -> RouteDispatcher.bodyAsString(response)
+                        .map(text -> result(response.getStatusCode().value(), text, isJson(response))))
+                .onErrorResume(e -> Mono.just(result(500, "Error interno: " + e.getMessage(), false)));
+    }
+
+    // Las cabeceras que describen el cuerpo del lote, o que solo valen para una petición, no pasan a las subpeticiones;
+    // el cuerpo de cada una es JSON y su respuesta se incrusta como JSON
+    private static HttpHeaders itemHeaders(HttpHeaders headers) {
+        HttpHeaders itemHeaders = new HttpHeaders();
+        if (headers != null) {
+            itemHeaders.addAll(headers);
+        }
+        for (String name : List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_ENCODING,
+                HttpHeaders.ACCEPT, HttpHeaders.IF_NONE_MATCH, RouteDispatcher.IDEMPOTENCY_KEY)) {
+            itemHeaders.remove(name);
+        }
+        itemHeaders.setContentType(MediaType.APPLICATION_JSON);
+        return HttpHeaders.readOnlyHttpHeaders(itemHeaders);
+    }
+
+    // Un cuerpo de texto se reenvía tal cual (p. ej. recover-password); cualquier otro nodo como JSON
+    private byte[] body(JsonNode body) throws Exception {
+        if (body == null || body.isNull()) {
+            return new byte[0];
+        }
+        if (body.isTextual()) {
+            return body.asText().getBytes(StandardCharsets.UTF_8);
+        }
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    private static boolean isJson(ResponseEntity<?> response) {
+        MediaType contentType = response.getHeaders().getContentType();
+        return contentType != null && (MediaType.APPLICATION_JSON.isCompatibleWith(contentType)
+                || contentType.getSubtype().endsWith("+json"));
+    }
+
+    // El JSON del microservicio se incrusta como nodo; si no es JSON válido (p. ej. una página de error), como texto
+    private ObjectNode result(int status, String body, boolean json) {
+        ObjectNode result = objectMapper.createObjectNode().put("status", status);
+        JsonNode parsed = json ? parse(body) : null;
+        if (parsed != null) {
+            result.set("body", parsed);
+        } else {
+            result.put("body", body);
+        }
+        return result;
+    }
+
+    private JsonNode parse(String body) {
+        if (body.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(body);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private ResponseEntity<Flux<DataBuffer>> jsonResponse(ArrayNode results) {
+        byte[] bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(results);
+        } catch (Exception e) {
+            return RouteDispatcher.textResponse(500, "Error interno: " + e.getMessage());
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(bytes)));
+    }
+}
@@ -0,0 +1,37 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import lombok.Builder;
+import lombok.Getter;
+
+// Petición entrante ya leída, relativa a /app/esb; el batch y la vista de orden construyen las suyas
+@Getter
+@Builder
+public class GatewayRequest {
+    private final HttpMethod method;
+    private final PathContainer path;
+    // Cabecera Authorization tal cual llega, o null
+    private final String token;
+    @Builder.Default
+    private final byte[] body = new byte[0];
+    @Builder.Default
+    private final HttpHeaders headers = HttpHeaders.EMPTY;
+    @Builder.Default
+    private final MultiValueMap<String, String> queryParams = new LinkedMultiValueMap<>();
+    // IP del cliente, o null si no se conoce
+    private final String remoteAddress;
+
+    public static GatewayRequest of(HttpMethod method, String path, String token, byte[] body) {
+        return GatewayRequest.builder()
+                .method(method)
+                .path(PathContainer.parsePath(path))
+                .token(token)
+                .body(body != null ? body : new byte[0])
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.utd.ti.soa.esb_service.config.IdempotencyProperties;
+import com.utd.ti.soa.esb_service.idempotency.IdempotencyKeyReusedException;
+import com.utd.ti.soa.esb_service.idempotency.IdempotencyOutcomeUnknownException;
+import com.utd.ti.soa.esb_service.idempotency.IdempotencyStore;
+import com.utd.ti.soa.esb_service.idempotency.IdempotencyStoreFullException;
+import com.utd.ti.soa.esb_service.idempotency.IdempotentResponse;
+import com.utd.ti.soa.esb_service.resilience.UpstreamUnavailableException;
+
+import io.jsonwebtoken.Claims;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Rutas con idempotent: true y cabecera Idempotency-Key: el resto de la cadena (encolar incluido) se ejecuta una vez
+// por clave y los reintentos reciben la respuesta guardada
+@Component
+@Order(400)
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyHandler implements RouteHandler {
+
+    private final IdempotencyStore idempotencyStore;
+    private final IdempotencyProperties properties;
+
+    public IdempotencyHandler(IdempotencyStore idempotencyStore, IdempotencyProperties properties) {
+        this.idempotencyStore = idempotencyStore;
+        this.properties = properties;
+    }
+
+    @Override
+    public Mono<ResponseEntity<Flux<DataBuffer>>> handle(RouteExchange exchange, Chain chain) {
+        Route route = exchange.getRoute();
+        String key = route.isIdempotent()
+                ? exchange.getRequest().getHeaders().getFirst(RouteDispatcher.IDEMPOTENCY_KEY) : null;
+        if (key == null) {
+            return chain.next(exchange);
+        }
+        if (key.isBlank() || key.length() > properties.getMaxKeyLength()) {
+            return Mono.just(RouteDispatcher.textResponse(400, "Idempotency-Key inválida: debe tener entre 1 y "
+                    + properties.getMaxKeyLength() + " caracteres"));
+        }
+        exchange.setIdempotent(true);
+        return idempotencyStore.execute(route.getId() + "|" + caller(exchange) + "|" + key,
+                        fingerprint(exchange.getUri(), exchange.getUpstreamBody()),
+                        () -> chain.next(exchange).flatMap(IdempotencyHandler::toBytes))
+                .map(IdempotencyHandler::toStreaming)
+                .onErrorResume(IdempotencyKeyReusedException.class,
+                        e -> Mono.just(RouteDispatcher.textResponse(422, e.getMessage())))
+                .onErrorResume(IdempotencyOutcomeUnknownException.class,
+                        e -> Mono.just(RouteDispatcher.textResponse(409, e.getMessage())))
+                .onErrorResume(IdempotencyStoreFullException.class,
+                        e -> Mono.just(RouteDispatcher.textResponse(503, e.getMessage())))
+                .onErrorResume(UpstreamUnavailableException.class,
+                        e -> Mono.just(RouteDispatcher.textResponse(503, route.getErrorMessage() + e.getMessage())));
+    }
+
+    // La clave es de quien la envía: dos usuarios con la misma clave no comparten respuesta
+    private static String caller(RouteExchange exchange) {
+        Claims claims = exchange.getClaims();
+        return claims != null && claims.getSubject() != null
+                ? claims.getSubject() : String.valueOf(exchange.getRequest().getToken());
+    }
+
+    // Una misma clave solo vale para el mismo destino y el mismo cuerpo ya normalizado
+    private static String fingerprint(URI uri, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(uri.toString().getBytes(StandardCharsets.UTF_8));
+            if (body != null) {
+                digest.update((byte) 0);
+                digest.update(body);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Mono<ResponseEntity<byte[]>> toBytes(ResponseEntity<Flux<DataBuffer>> response) {
+        Flux<DataBuffer> body = response.getBody() != null ? response.getBody() : Flux.empty();
+        return DataBufferUtils.join(body)
+                .map(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0])
+                .map(bytes -> ResponseEntity.status(response.getStatusCode()).headers(response.getHeaders()).body(bytes));
+    }
+
+    private static ResponseEntity<Flux<DataBuffer>> toStreaming(IdempotentResponse result) {
+        ResponseEntity<Flux<DataBuffer>> response = RouteDispatcher.toStreaming(result.getResponse());
+        if (!result.isReplayed()) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(RouteDispatcher.IDEMPOTENT_REPLAYED, "true")
+                .body(response.getBody());
+    }
+}
@@ -0,0 +1,41 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.utd.ti.soa.esb_service.config.ListingProperties;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Rutas con listing: true pedidas con ?page=, ?cursor= o Accept NDJSON/SSE; sin esos parámetros sigue la cadena
+@Component
+@Order(600)
+@EnableConfigurationProperties(ListingProperties.class)
+public class ListingHandler implements RouteHandler {
+
+    private final ListingProperties properties;
+    private final UpstreamForwarder upstreamForwarder;
+
+    public ListingHandler(ListingProperties properties, UpstreamForwarder upstreamForwarder) {
+        this.properties = properties;
+        this.upstreamForwarder = upstreamForwarder;
+    }
+
+    @Override
+    public Mono<ResponseEntity<Flux<DataBuffer>>> handle(RouteExchange exchange, Chain chain) {
+        if (!exchange.getRoute().isListing()) {
+            return chain.next(exchange);
+        }
+        ListingRequest listing;
+        try {
+            listing = ListingRequest.of(exchange.getRequest(), properties);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return Mono.just(RouteDispatcher.textResponse(400, "Parámetros de paginación inválidos: " + e.getMessage()));
+        }
+        return listing != null ? upstreamForwarder.forwardListing(exchange, listing) : chain.next(exchange);
+    }
+}
@@ -0,0 +1,88 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import org.springframework.http.MediaType;
+import org.springframework.util.MultiValueMap;
+
+import com.utd.ti.soa.esb_service.config.ListingProperties;
+import com.utd.ti.soa.esb_service.utils.JsonListStreamer.Format;
+
+import lombok.Getter;
+
+// Qué parte de un listado pide el cliente y en qué formato: ?page=&size=, ?cursor=&size= y/o Accept NDJSON o SSE
+@Getter
+public class ListingRequest {
+
+    private final Format format;
+    private final long offset;
+    // -1 = hasta el final del listado
+    private final long limit;
+
+    private ListingRequest(Format format, long offset, long limit) {
+        this.format = format;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    // null si la petición es la de siempre (listado JSON completo); IllegalArgumentException si los parámetros no valen
+    public static ListingRequest of(GatewayRequest request, ListingProperties properties) {
+        Format format = format(request.getHeaders().getAccept());
+        MultiValueMap<String, String> query = request.getQueryParams();
+        String page = query.getFirst("page");
+        String size = query.getFirst("size");
+        String cursor = query.getFirst("cursor");
+        boolean paged = page != null || size != null || cursor != null;
+        if (!paged) {
+            return format == Format.JSON ? null : new ListingRequest(format, 0, -1);
+        }
+        if (page != null && cursor != null) {
+            throw new IllegalArgumentException("Use page o cursor, no ambos");
+        }
+
+        long pageSize = size != null ? Long.parseLong(size) : properties.getDefaultPageSize();
+        if (pageSize < 1 || pageSize > properties.getMaxPageSize()) {
+            throw new IllegalArgumentException("size debe estar entre 1 y " + properties.getMaxPageSize());
+        }
+        long offset;
+        if (cursor != null) {
+            offset = decodeCursor(cursor);
+        } else {
+            long pageNumber = page != null ? Long.parseLong(page) : 0;
+            if (pageNumber < 0) {
+                throw new IllegalArgumentException("page no puede ser negativo");
+            }
+            offset = Math.multiplyExact(pageNumber, pageSize);
+        }
+        return new ListingRequest(format, offset, pageSize);
+    }
+
+    // El cursor es opaco para el cliente; hoy solo codifica la posición en el listado del microservicio
+    public static String encodeCursor(long offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(offset).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long decodeCursor(String cursor) {
+        long offset = Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        if (offset < 0) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        return offset;
+    }
+
+    private static Format format(List<MediaType> accept) {
+        for (MediaType mediaType : accept) {
+            // Solo si se piden explícitamente: */* sigue recibiendo el listado JSON
+            if (MediaType.TEXT_EVENT_STREAM.equalsTypeAndSubtype(mediaType)) {
+                return Format.SSE;
+            }
+            if (MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(mediaType)) {
+                return Format.NDJSON;
+            }
+        }
+        return Format.JSON;
+    }
+}
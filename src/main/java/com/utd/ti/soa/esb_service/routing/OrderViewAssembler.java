@@ -0,0 +1,267 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.utd.ti.soa.esb_service.config.OrderViewProperties;
+import com.utd.ti.soa.esb_service.metrics.GatewayMetrics;
+import com.utd.ti.soa.esb_service.metrics.RequestTiming;
+import com.utd.ti.soa.esb_service.model.CheckoutRequest;
+import com.utd.ti.soa.esb_service.model.CreateOrderRequest;
+import com.utd.ti.soa.esb_service.utils.Auth;
+
+import io.jsonwebtoken.Claims;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Compone usuario, cliente y producto en un solo documento pidiéndolos en paralelo a través de sus rutas
+// (list-users, get-client, list-products), de modo que aplican sus roles, caché y métricas con el token del llamante.
+// Como list-users y get-client son solo de admin, la vista se limita a esb.order-view.roles (admin por defecto).
+// Users y products no tienen consulta por id: cada listado se indexa por esb.order-view.id-field una vez por ETag
+// y rol, y se revalida con If-None-Match, de modo que mientras no cambie no se vuelve a descargar ni a recorrer
+@Component
+@EnableConfigurationProperties(OrderViewProperties.class)
+public class OrderViewAssembler {
+
+    public static final String VIEW_ROUTE_ID = "order-view";
+    public static final String CHECKOUT_ROUTE_ID = "checkout";
+
+    private final RouteDispatcher routeDispatcher;
+    private final Auth auth;
+    private final GatewayMetrics metrics;
+    private final ObjectMapper objectMapper;
+    private final OrderViewProperties properties;
+    // Último índice de cada listado (por rol y ruta, como ResponseCache) con el ETag con que se construyó
+    private final Map<String, ListIndex> indexes = new ConcurrentHashMap<>();
+
+    public OrderViewAssembler(RouteDispatcher routeDispatcher, Auth auth, GatewayMetrics metrics,
+                              ObjectMapper objectMapper, OrderViewProperties properties) {
+        this.routeDispatcher = routeDispatcher;
+        this.auth = auth;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    public Mono<ResponseEntity<Flux<DataBuffer>>> view(String token, String userId, String clientId, String productId) {
+        if (userId == null || clientId == null || productId == null) {
+            return Mono.just(RouteDispatcher.textResponse(400, "Se requieren userId, clientId y productId"));
+        }
+        RequestTiming timing = metrics.start(VIEW_ROUTE_ID, HttpMethod.GET);
+        Supplier<Claims> verified = verifyOnce(token);
+        ResponseEntity<Flux<DataBuffer>> denied = authorize(token, verified.get());
+        if (denied != null) {
+            return metrics.observe(timing, Mono.just(denied));
+        }
+        return metrics.observe(timing, fetchView(token, verified, userId, clientId, productId)
+                .map(this::jsonResponse)
+                .onErrorResume(PartFailure.class, e -> Mono.just(RouteDispatcher.textResponse(e.status, e.getMessage()))));
+    }
+
+    // Valida la orden contra el producto (si esb.order-view.validate-stock) y la reenvía a create-order
+    public Mono<ResponseEntity<Flux<DataBuffer>>> checkout(String token, CheckoutRequest request) {
+        if (request == null || request.getUserId() == null || request.getClientId() == null
+                || request.getProductId() == null) {
+            return Mono.just(RouteDispatcher.textResponse(400, "Se requieren userId, clientId y productId"));
+        }
+        if (request.getQuantity() < 1) {
+            return Mono.just(RouteDispatcher.textResponse(400, "La cantidad debe ser mayor que cero"));
+        }
+        RequestTiming timing = metrics.start(CHECKOUT_ROUTE_ID, HttpMethod.POST);
+        Supplier<Claims> verified = verifyOnce(token);
+        ResponseEntity<Flux<DataBuffer>> denied = authorize(token, verified.get());
+        if (denied != null) {
+            return metrics.observe(timing, Mono.just(denied));
+        }
+        return metrics.observe(timing,
+                fetchView(token, verified, request.getUserId().toString(), request.getClientId(), request.getProductId())
+                        .flatMap(view -> createOrder(token, verified, request, view))
+                        .map(this::jsonResponse)
+                        .onErrorResume(PartFailure.class,
+                                e -> Mono.just(RouteDispatcher.textResponse(e.status, e.getMessage()))));
+    }
+
+    private Supplier<Claims> verifyOnce(String token) {
+        Claims claims = token != null ? metrics.timeAuth(() -> auth.validateToken(token)) : null;
+        return () -> claims;
+    }
+
+    // Mismos códigos que las rutas con token: sin cabecera 400, token inválido 401 y rol no permitido 403
+    private ResponseEntity<Flux<DataBuffer>> authorize(String token, Claims claims) {
+        if (token == null) {
+            return RouteDispatcher.textResponse(400, "Falta la cabecera Authorization");
+        }
+        if (claims == null) {
+            return RouteDispatcher.textResponse(401, "Token inválido o expirado");
+        }
+        if (!properties.getRoles().isEmpty() && !properties.getRoles().contains(claims.get("rol", String.class))) {
+            return RouteDispatcher.textResponse(403, "Acceso denegado: rol no autorizado para órdenes");
+        }
+        return null;
+    }
+
+    // La latencia es la de la consulta más lenta, no la suma de las tres
+    private Mono<ObjectNode> fetchView(String token, Supplier<Claims> verified,
+                                       String userId, String clientId, String productId) {
+        return Mono.zip(
+                        fetchIndexed(token, verified, "/users", userId, "Usuario"),
+                        fetch(token, verified, "/clients/" + UriUtils.encodePathSegment(clientId, "UTF-8"), "cliente"),
+                        fetchIndexed(token, verified, "/products", productId, "Producto"))
+                .map(parts -> {
+                    ObjectNode view = objectMapper.createObjectNode();
+                    view.set("user", parts.getT1());
+                    view.set("client", parts.getT2());
+                    view.set("product", parts.getT3());
+                    return view;
+                });
+    }
+
+    private Mono<ObjectNode> createOrder(String token, Supplier<Claims> verified, CheckoutRequest request, ObjectNode view) {
+        JsonNode product = view.get("product");
+        String productId = request.getProductId();
+        double expected = Math.round(product.path("price").asDouble() * request.getQuantity() * 100) / 100.0;
+
+        if (properties.isValidateStock()) {
+            if (!product.path("status").asBoolean(true)) {
+                return Mono.error(new PartFailure(409, "El producto " + productId + " está dado de baja"));
+            }
+            int stock = product.path("stock").asInt(0);
+            if (stock < request.getQuantity()) {
+                return Mono.error(new PartFailure(409,
+                        "Stock insuficiente para el producto " + productId + ": disponible " + stock));
+            }
+            if (request.getAmount() != null && Math.abs(request.getAmount() - expected) > 0.005) {
+                return Mono.error(new PartFailure(409,
+                        "El importe no coincide con el precio del producto: se esperaba " + expected));
+            }
+        }
+
+        double amount = request.getAmount() != null ? request.getAmount() : expected;
+        CreateOrderRequest order = new CreateOrderRequest(amount, request.getCurrency(), request.getUserId());
+        return Mono.fromCallable(() -> objectMapper.writeValueAsBytes(order))
+                .flatMap(body -> routeDispatcher.dispatch(
+                        GatewayRequest.of(HttpMethod.POST, "/payments/create-order", token, body), verified))
+                .flatMap(response -> RouteDispatcher.bodyAsString(response).map(text -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        throw new PartFailure(response.getStatusCode().value(), text);
+                    }
+                    view.set("order", readTree(text));
+                    return view;
+                }));
+    }
+
+    private Mono<JsonNode> fetch(String token, Supplier<Claims> verified, String path, String label) {
+        return routeDispatcher.dispatch(part(path, token, HttpHeaders.EMPTY), verified)
+                .flatMap(response -> RouteDispatcher.bodyAsString(response).map(text -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        throw new PartFailure(response.getStatusCode().value(),
+                                "No se pudo obtener el " + label + ": " + text);
+                    }
+                    return readTree(text);
+                }));
+    }
+
+    // Con índice se pide el listado condicionado a su ETag: un 304 (de la caché o del upstream) lo reutiliza sin cuerpo
+    private Mono<JsonNode> fetchIndexed(String token, Supplier<Claims> verified, String path, String id, String label) {
+        Claims claims = verified.get();
+        String indexKey = (claims != null ? claims.get("rol", String.class) : "anonymous") + "|" + path;
+        ListIndex cached = indexes.get(indexKey);
+        HttpHeaders headers = new HttpHeaders();
+        if (cached != null) {
+            headers.setIfNoneMatch(cached.etag());
+        }
+        return routeDispatcher.dispatch(part(path, token, HttpHeaders.readOnlyHttpHeaders(headers)), verified)
+                .flatMap(response -> RouteDispatcher.bodyAsString(response).map(text -> {
+                    int status = response.getStatusCode().value();
+                    ListIndex index;
+                    if (status == 304 && cached != null) {
+                        index = cached;
+                    } else if (response.getStatusCode().is2xxSuccessful()) {
+                        index = index(response.getHeaders().getETag(), readTree(text));
+                        if (index.etag() != null) {
+                            indexes.put(indexKey, index);
+                        }
+                    } else {
+                        throw new PartFailure(status, "No se pudo obtener el " + label.toLowerCase() + ": " + text);
+                    }
+                    JsonNode item = index.byId().get(id);
+                    if (item == null) {
+                        throw new PartFailure(404, label + " " + id + " no encontrado");
+                    }
+                    return item;
+                }));
+    }
+
+    private ListIndex index(String etag, JsonNode list) {
+        Map<String, JsonNode> byId = new HashMap<>(Math.max(16, list.size() * 2));
+        for (JsonNode item : list) {
+            String id = item.path(properties.getIdField()).asText(null);
+            if (id != null) {
+                byId.putIfAbsent(id, item);
+            }
+        }
+        return new ListIndex(etag, byId);
+    }
+
+    private static GatewayRequest part(String path, String token, HttpHeaders headers) {
+        return GatewayRequest.builder()
+                .method(HttpMethod.GET)
+                .path(PathContainer.parsePath(path))
+                .token(token)
+                .headers(headers)
+                .build();
+    }
+
+    // Los microservicios pueden responder texto plano; se conserva como cadena
+    private JsonNode readTree(String text) {
+        if (text.isBlank()) {
+            return objectMapper.nullNode();
+        }
+        try {
+            return objectMapper.readTree(text);
+        } catch (Exception e) {
+            return objectMapper.getNodeFactory().textNode(text);
+        }
+    }
+
+    private ResponseEntity<Flux<DataBuffer>> jsonResponse(ObjectNode document) {
+        byte[] bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(document);
+        } catch (Exception e) {
+            return RouteDispatcher.textResponse(500, "Error interno: " + e.getMessage());
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(bytes)));
+    }
+
+    private record ListIndex(String etag, Map<String, JsonNode> byId) {
+    }
+
+    // Una parte de la vista o la orden falló; se responde con su estado en lugar de un documento incompleto
+    private static final class PartFailure extends RuntimeException {
+        private final int status;
+
+        private PartFailure(int status, String message) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+    }
+}
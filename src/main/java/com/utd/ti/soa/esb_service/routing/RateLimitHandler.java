@@ -0,0 +1,56 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.utd.ti.soa.esb_service.resilience.RateLimiter;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Primera etapa de la cadena: por encima del límite se rechaza antes de leer el cuerpo o llamar al microservicio.
+// El token ya lo verificó RouteDispatcher, porque la cubeta de quien lo trae es la de su usuario
+@Component
+@Order(100)
+public class RateLimitHandler implements RouteHandler {
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitHandler(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public Mono<ResponseEntity<Flux<DataBuffer>>> handle(RouteExchange exchange, Chain chain) {
+        long waitNanos = acquire(exchange);
+        return waitNanos > 0 ? Mono.just(tooManyRequests(waitNanos)) : chain.next(exchange);
+    }
+
+    // Con token válido la cubeta es del usuario (sub y rol); sin él, de la IP, como en login o recover-password
+    private long acquire(RouteExchange exchange) {
+        String routeId = exchange.getRoute().getId();
+        if (exchange.getClaims() != null) {
+            String role = exchange.role();
+            return rateLimiter.tryAcquire(routeId, role, "user:" + exchange.getClaims().getSubject() + ":" + role);
+        }
+        String remoteAddress = exchange.getRequest().getRemoteAddress();
+        String client = remoteAddress != null ? "ip:" + remoteAddress : RateLimiter.ANONYMOUS;
+        return rateLimiter.tryAcquire(routeId, RateLimiter.ANONYMOUS, client);
+    }
+
+    private static ResponseEntity<Flux<DataBuffer>> tooManyRequests(long waitNanos) {
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        return ResponseEntity.status(429)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(seconds))
+                .contentType(RouteDispatcher.TEXT_UTF8)
+                .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(
+                        ("Demasiadas peticiones: intente de nuevo en " + seconds + " s").getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,51 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utd.ti.soa.esb_service.utils.BinaryCodec;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// El cuerpo tipado se valida contra la clase de model y se reenvía ya normalizado; Smile o CBOR se pasan a JSON
+@Component
+@Order(300)
+public class RequestBodyHandler implements RouteHandler {
+
+    private final ObjectMapper objectMapper;
+    private final BinaryCodec binaryCodec;
+
+    public RequestBodyHandler(ObjectMapper objectMapper, BinaryCodec binaryCodec) {
+        this.objectMapper = objectMapper;
+        this.binaryCodec = binaryCodec;
+    }
+
+    @Override
+    public Mono<ResponseEntity<Flux<DataBuffer>>> handle(RouteExchange exchange, Chain chain) {
+        try {
+            exchange.setUpstreamBody(upstreamBody(exchange.getRoute(), exchange.getRequest()));
+        } catch (Exception e) {
+            return Mono.just(RouteDispatcher.textResponse(400, "Cuerpo de la petición inválido"));
+        }
+        return chain.next(exchange);
+    }
+
+    private byte[] upstreamBody(Route route, GatewayRequest request) throws Exception {
+        byte[] body = request.getBody();
+        if (route.getBodyType() == null) {
+            return null;
+        }
+        if (body == null || body.length == 0) {
+            throw new IllegalArgumentException("Cuerpo vacío");
+        }
+        ObjectMapper reader = binaryCodec.mapperFor(request.getHeaders().getContentType());
+        if (route.getBodyType() == byte[].class) {
+            return reader == null ? body : objectMapper.writeValueAsBytes(reader.readTree(body));
+        }
+        return objectMapper.writeValueAsBytes((reader != null ? reader : objectMapper).readValue(body, route.getBodyType()));
+    }
+}
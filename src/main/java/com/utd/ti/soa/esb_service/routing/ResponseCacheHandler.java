@@ -0,0 +1,89 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import java.io.IOException;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.utd.ti.soa.esb_service.utils.BinaryCodec;
+import com.utd.ti.soa.esb_service.utils.EntityTags;
+import com.utd.ti.soa.esb_service.utils.ResponseCache;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Solo se junta el cuerpo de las rutas con caché, para guardarlo con su ETag, o si hay que traducirlo a Smile o CBOR;
+// el resto sigue la cadena y se retransmite buffer a buffer (listados grandes incluidos)
+@Component
+@Order(700)
+public class ResponseCacheHandler implements RouteHandler {
+
+    private final ResponseCache responseCache;
+    private final BinaryCodec binaryCodec;
+    private final UpstreamForwarder upstreamForwarder;
+
+    public ResponseCacheHandler(ResponseCache responseCache, BinaryCodec binaryCodec,
+                                UpstreamForwarder upstreamForwarder) {
+        this.responseCache = responseCache;
+        this.binaryCodec = binaryCodec;
+        this.upstreamForwarder = upstreamForwarder;
+    }
+
+    @Override
+    public Mono<ResponseEntity<Flux<DataBuffer>>> handle(RouteExchange exchange, Chain chain) {
+        Route route = exchange.getRoute();
+        HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+        MediaType binaryFormat = exchange.getRequest().getMethod() == HttpMethod.GET
+                ? binaryCodec.negotiate(requestHeaders) : null;
+        if (!responseCache.caches(route.getId()) && binaryFormat == null) {
+            return chain.next(exchange);
+        }
+        String role = exchange.getClaims() != null ? exchange.role() : "anonymous";
+        return responseCache.get(route.getId(), role, exchange.getUri().getRawPath(),
+                        stale -> upstreamForwarder.aggregate(exchange, stale))
+                .map(response -> conditional(requestHeaders, response));
+    }
+
+    // Cada codificación es una representación con su propio ETag; el 304 se decide antes de traducir nada
+    private ResponseEntity<Flux<DataBuffer>> conditional(HttpHeaders requestHeaders, ResponseEntity<byte[]> response) {
+        MediaType format = response.getStatusCode().is2xxSuccessful()
+                && BinaryCodec.isJson(response.getHeaders().getContentType())
+                ? binaryCodec.negotiate(requestHeaders) : null;
+        String etag = response.getHeaders().getETag();
+        if (etag != null && format != null) {
+            etag = BinaryCodec.variant(etag, format);
+        }
+        if (etag != null && response.getStatusCode().is2xxSuccessful()
+                && EntityTags.matches(requestHeaders.get(HttpHeaders.IF_NONE_MATCH), etag)) {
+            ResponseEntity.BodyBuilder notModified = ResponseEntity.status(304).eTag(etag);
+            if (binaryCodec.isEnabled()) {
+                notModified.varyBy(HttpHeaders.ACCEPT);
+            }
+            return notModified.body(Flux.empty());
+        }
+        if (format == null) {
+            return RouteDispatcher.toStreaming(response);
+        }
+        byte[] encoded;
+        try {
+            encoded = binaryCodec.transcode(response.getBody(), format);
+        } catch (IOException e) {
+            // El upstream dijo JSON pero no lo es: se entrega tal cual
+            return RouteDispatcher.toStreaming(response);
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.getStatusCode())
+                .contentType(format)
+                .contentLength(encoded.length)
+                .varyBy(HttpHeaders.ACCEPT);
+        if (etag != null) {
+            builder.eTag(etag);
+        }
+        return builder.body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(encoded)));
+    }
+}
@@ -0,0 +1,39 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.pattern.PathPattern;
+
+import lombok.Builder;
+import lombok.Getter;
+
+// Ruta compilada al arrancar a partir de una entrada de esb.routes
+@Getter
+@Builder
+public class Route {
+    private final String id;
+    private final HttpMethod method;
+    private final PathPattern pattern;
+    private final RouteAuth auth;
+    private final List<String> roles;
+    private final String deniedMessage;
+    private final String upstream;
+    private final WebClient client;
+    private final HttpMethod upstreamMethod;
+    private final UpstreamPathTemplate upstreamPath;
+    // null si la ruta no lleva cuerpo, byte[].class si se reenvía sin tocar
+    private final Class<?> bodyType;
+    private final Duration timeout;
+    private final String errorMessage;
+    private final List<String> invalidates;
+    private final boolean listing;
+    private final boolean idempotent;
+    private final boolean async;
+
+    public boolean allows(String role) {
+        return role != null && roles.contains(role);
+    }
+}
@@ -0,0 +1,12 @@
+package com.utd.ti.soa.esb_service.routing;
+
+public enum RouteAuth {
+    // Sin token (p. ej. recuperación de contraseña)
+    NONE,
+    // Exige la cabecera Authorization y la reenvía sin validarla (p. ej. login)
+    HEADER,
+    // Exige un token válido de cualquier rol
+    TOKEN,
+    // Exige un token válido con alguno de los roles de la ruta
+    ROLES
+}
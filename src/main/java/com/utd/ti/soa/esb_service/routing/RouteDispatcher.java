@@ -0,0 +1,112 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.utd.ti.soa.esb_service.metrics.GatewayMetrics;
+import com.utd.ti.soa.esb_service.metrics.RequestTiming;
+import com.utd.ti.soa.esb_service.utils.Auth;
+
+import io.jsonwebtoken.Claims;
+import lombok.Builder;
+import lombok.Singular;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Resuelve la ruta de una petición y la pasa por los RouteHandler en su orden (límite, autorización, cuerpo,
+// idempotencia, escritura diferida, listados, caché); si ninguno responde se reenvía tal cual al microservicio
+@Component
+public class RouteDispatcher {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
+    static final MediaType TEXT_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    private final RouteTable routeTable;
+    private final Auth auth;
+    private final GatewayMetrics metrics;
+    private final UpstreamForwarder upstreamForwarder;
+    private final List<RouteHandler> handlers;
+
+    @Builder
+    public RouteDispatcher(RouteTable routeTable, Auth auth, GatewayMetrics metrics,
+                           UpstreamForwarder upstreamForwarder, @Singular List<RouteHandler> handlers) {
+        this.routeTable = routeTable;
+        this.auth = auth;
+        this.metrics = metrics;
+        this.upstreamForwarder = upstreamForwarder;
+        this.handlers = new ArrayList<>(handlers);
+        AnnotationAwareOrderComparator.sort(this.handlers);
+    }
+
+    public Mono<ResponseEntity<Flux<DataBuffer>>> dispatch(GatewayRequest request) {
+        return dispatch(request, () -> metrics.timeAuth(() -> auth.validateToken(request.getToken())));
+    }
+
+    // verifier solo se invoca si la ruta exige token y viene la cabecera; el batch pasa claims ya verificados
+    public Mono<ResponseEntity<Flux<DataBuffer>>> dispatch(GatewayRequest request, Supplier<Claims> verifier) {
+        RouteMatch match = routeTable.match(request.getMethod(), request.getPath());
+        if (match == null) {
+            RequestTiming timing = metrics.start(GatewayMetrics.UNMATCHED_ROUTE, request.getMethod());
+            return metrics.observe(timing, Mono.just(routeTable.matchesAnyMethod(request.getPath())
+                    ? textResponse(405, "Método no permitido")
+                    : textResponse(404, "Ruta no encontrada")));
+        }
+        Route route = match.getRoute();
+        RequestTiming timing = metrics.start(route.getId(), request.getMethod());
+        Claims claims = null;
+        if (route.getAuth() == RouteAuth.TOKEN || route.getAuth() == RouteAuth.ROLES) {
+            claims = request.getToken() != null ? verifier.get() : null;
+        }
+        return metrics.observe(timing, next(new RouteExchange(match, request, claims, timing), 0));
+    }
+
+    private Mono<ResponseEntity<Flux<DataBuffer>>> next(RouteExchange exchange, int index) {
+        if (index == handlers.size()) {
+            return upstreamForwarder.forward(exchange);
+        }
+        return handlers.get(index).handle(exchange, following -> next(following, index + 1));
+    }
+
+    // Con Content-Length la compresión del servidor puede aplicar server.compression.min-response-size
+    public static ResponseEntity<Flux<DataBuffer>> toStreaming(ResponseEntity<byte[]> response) {
+        byte[] body = response.getBody();
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .contentLength(body.length)
+                .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)));
+    }
+
+    // Para quien compone respuestas (batch, vista de orden) a partir de las de otras rutas
+    public static Mono<String> bodyAsString(ResponseEntity<Flux<DataBuffer>> response) {
+        if (response.getBody() == null) {
+            return Mono.just("");
+        }
+        return DataBufferUtils.join(response.getBody())
+                .map(joined -> {
+                    String text = joined.toString(StandardCharsets.UTF_8);
+                    DataBufferUtils.release(joined);
+                    return text;
+                })
+                .defaultIfEmpty("");
+    }
+
+    public static ResponseEntity<Flux<DataBuffer>> textResponse(int status, String message) {
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.status(status)
+                .contentType(TEXT_UTF8)
+                .contentLength(body.length)
+                .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)));
+    }
+}
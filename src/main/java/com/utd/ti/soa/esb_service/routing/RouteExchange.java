@@ -0,0 +1,42 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import java.net.URI;
+
+import com.utd.ti.soa.esb_service.metrics.RequestTiming;
+
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+import lombok.Setter;
+
+// Una petición ya resuelta contra su ruta mientras recorre los RouteHandler
+@Getter
+public class RouteExchange {
+    private final Route route;
+    private final GatewayRequest request;
+    // Claims del token si la ruta lo exige y es válido, o null
+    private final Claims claims;
+    private final RequestTiming timing;
+    private final URI uri;
+    // Solo se reenvía el token a las rutas que lo exigen
+    private final String forwardedToken;
+    // Cuerpo validado y normalizado a JSON por RequestBodyHandler, o null si la ruta no lleva cuerpo
+    @Setter
+    private byte[] upstreamBody;
+    // Con Idempotency-Key el rechazo del propio ESB (circuito o bulkhead) se propaga como error: es el único caso en
+    // que se sabe que el microservicio no recibió la escritura y el almacén puede olvidar la clave
+    @Setter
+    private boolean idempotent;
+
+    RouteExchange(RouteMatch match, GatewayRequest request, Claims claims, RequestTiming timing) {
+        this.route = match.getRoute();
+        this.request = request;
+        this.claims = claims;
+        this.timing = timing;
+        this.uri = route.getUpstreamPath().expand(match.getVariables());
+        this.forwardedToken = route.getAuth() == RouteAuth.NONE ? null : request.getToken();
+    }
+
+    String role() {
+        return claims != null ? claims.get("rol", String.class) : null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ResponseEntity;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Una etapa del despacho de una ruta (límite, autorización, idempotencia, caché...): responde ella misma o pasa la
+// petición a la siguiente. El orden lo da @Order y al final de la cadena se reenvía al microservicio
+public interface RouteHandler {
+
+    Mono<ResponseEntity<Flux<DataBuffer>>> handle(RouteExchange exchange, Chain chain);
+
+    interface Chain {
+        Mono<ResponseEntity<Flux<DataBuffer>>> next(RouteExchange exchange);
+    }
+}
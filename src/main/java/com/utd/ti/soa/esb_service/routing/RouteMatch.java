@@ -0,0 +1,13 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class RouteMatch {
+    private final Route route;
+    private final Map<String, String> variables;
+}
@@ -0,0 +1,123 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.utd.ti.soa.esb_service.config.RouteProperties;
+import com.utd.ti.soa.esb_service.config.UpstreamClients;
+
+// Compila esb.routes al arrancar y resuelve cada petición contra los patrones precompilados
+@Component
+@EnableConfigurationProperties(RouteProperties.class)
+public class RouteTable {
+
+    private static final String MODEL_PACKAGE = "com.utd.ti.soa.esb_service.model.";
+
+    private final Map<HttpMethod, List<Route>> routesByMethod = new LinkedHashMap<>();
+    private final Map<String, Route> routesById = new LinkedHashMap<>();
+
+    public RouteTable(RouteProperties properties, UpstreamClients upstreamClients) {
+        PathPatternParser parser = new PathPatternParser();
+        for (RouteProperties.Definition definition : properties.getRoutes()) {
+            Route route = compile(definition, parser, upstreamClients);
+            if (routesById.put(route.getId(), route) != null) {
+                throw new IllegalStateException("Ruta duplicada: " + route.getId());
+            }
+            routesByMethod.computeIfAbsent(route.getMethod(), m -> new ArrayList<>()).add(route);
+        }
+        // Los patrones más específicos se prueban primero, como hace Spring con @RequestMapping
+        routesByMethod.values().forEach(routes ->
+                routes.sort((a, b) -> PathPattern.SPECIFICITY_COMPARATOR.compare(a.getPattern(), b.getPattern())));
+    }
+
+    public RouteMatch match(HttpMethod method, PathContainer path) {
+        List<Route> routes = routesByMethod.get(method);
+        if (routes == null) {
+            return null;
+        }
+        for (Route route : routes) {
+            PathPattern.PathMatchInfo info = route.getPattern().matchAndExtract(path);
+            if (info != null) {
+                return new RouteMatch(route, info.getUriVariables());
+            }
+        }
+        return null;
+    }
+
+    // Indica si la ruta existe con otro método, para responder 405 en lugar de 404
+    public boolean matchesAnyMethod(PathContainer path) {
+        for (List<Route> routes : routesByMethod.values()) {
+            for (Route route : routes) {
+                if (route.getPattern().matches(path)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public Route get(String id) {
+        return routesById.get(id);
+    }
+
+    public Collection<Route> routes() {
+        return routesById.values();
+    }
+
+    private static Route compile(RouteProperties.Definition definition, PathPatternParser parser,
+                                 UpstreamClients upstreamClients) {
+        if (definition.getId() == null || definition.getPath() == null || definition.getUpstream() == null
+                || definition.getUpstreamPath() == null) {
+            throw new IllegalStateException("Ruta incompleta en esb.routes: " + definition.getId());
+        }
+        HttpMethod method = HttpMethod.valueOf(definition.getMethod().toUpperCase(Locale.ROOT));
+        HttpMethod upstreamMethod = definition.getUpstreamMethod() != null
+                ? HttpMethod.valueOf(definition.getUpstreamMethod().toUpperCase(Locale.ROOT))
+                : method;
+        return Route.builder()
+                .id(definition.getId())
+                .method(method)
+                .pattern(parser.parse(definition.getPath()))
+                .auth(definition.getAuth())
+                .roles(List.copyOf(definition.getRoles()))
+                .deniedMessage(definition.getDeniedMessage())
+                .upstream(definition.getUpstream())
+                .client(upstreamClients.get(definition.getUpstream()))
+                .upstreamMethod(upstreamMethod)
+                .upstreamPath(UpstreamPathTemplate.compile(
+                        upstreamClients.baseUrl(definition.getUpstream()), definition.getUpstreamPath()))
+                .bodyType(bodyType(definition.getBodyType()))
+                .timeout(definition.getTimeout())
+                .errorMessage(definition.getErrorMessage())
+                .invalidates(List.copyOf(definition.getInvalidates()))
+                .listing(definition.isListing())
+                .idempotent(definition.isIdempotent())
+                .async(definition.isAsync())
+                .build();
+    }
+
+    private static Class<?> bodyType(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        if ("raw".equalsIgnoreCase(name)) {
+            return byte[].class;
+        }
+        try {
+            return Class.forName(MODEL_PACKAGE + name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Tipo de cuerpo desconocido en esb.routes: " + name, e);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.utd.ti.soa.esb_service.metrics.RequestTiming;
+import com.utd.ti.soa.esb_service.resilience.UpstreamRetry;
+import com.utd.ti.soa.esb_service.resilience.UpstreamUnavailableException;
+import com.utd.ti.soa.esb_service.utils.EntityTags;
+import com.utd.ti.soa.esb_service.utils.JsonFieldFilter;
+import com.utd.ti.soa.esb_service.utils.JsonListStreamer;
+import com.utd.ti.soa.esb_service.utils.ResponseCache;
+import com.utd.ti.soa.esb_service.utils.TaggedBody;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Llamada al microservicio de una ruta con sus reintentos, timeout, filtro de campos e invalidación de caché:
+// retransmitida buffer a buffer, paginada o juntada en memoria con su ETag
+@Component
+public class UpstreamForwarder {
+
+    private final JsonFieldFilter jsonFieldFilter;
+    private final JsonListStreamer listStreamer;
+    private final ResponseCache responseCache;
+    private final UpstreamRetry upstreamRetry;
+
+    public UpstreamForwarder(JsonFieldFilter jsonFieldFilter, JsonListStreamer listStreamer,
+                             ResponseCache responseCache, UpstreamRetry upstreamRetry) {
+        this.jsonFieldFilter = jsonFieldFilter;
+        this.listStreamer = listStreamer;
+        this.responseCache = responseCache;
+        this.upstreamRetry = upstreamRetry;
+    }
+
+    // En un GET sin filtro de campos el cuerpo es el del upstream: su ETag vale tal cual y el If-None-Match del
+    // cliente se le reenvía, de modo que el 304 lo decide el propio upstream. Sin filtro también se conserva su
+    // Content-Length, para que server.compression.min-response-size deje sin comprimir los cuerpos pequeños
+    public Mono<ResponseEntity<Flux<DataBuffer>>> forward(RouteExchange exchange) {
+        Route route = exchange.getRoute();
+        boolean filtered = jsonFieldFilter.filters(route.getId());
+        boolean validators = route.getMethod() == HttpMethod.GET && !filtered;
+        List<String> ifNoneMatch = validators ? exchange.getRequest().getHeaders().get(HttpHeaders.IF_NONE_MATCH) : null;
+        Mono<ResponseEntity<Flux<DataBuffer>>> call = upstreamRetry.apply(route.getId(),
+                () -> {
+                    WebClient.RequestHeadersSpec<?> spec = request(exchange, exchange.getUpstreamBody());
+                    if (ifNoneMatch != null) {
+                        spec = spec.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch.toArray(String[]::new));
+                    }
+                    return spec.retrieve().toEntityFlux(DataBuffer.class);
+                });
+        if (route.getTimeout() != null) {
+            call = call.timeout(route.getTimeout());
+        }
+        return call
+                .map(upstream -> {
+                    invalidate(route);
+                    String etag = validators ? upstream.getHeaders().getETag() : null;
+                    boolean notModified = ifNoneMatch != null && upstream.getStatusCode().value() == 304;
+                    ResponseEntity.BodyBuilder builder = notModified
+                            ? ResponseEntity.status(304)
+                            : ResponseEntity.ok().contentType(contentType(upstream.getHeaders()));
+                    if (etag != null) {
+                        builder.eTag(etag);
+                    }
+                    long contentLength = upstream.getHeaders().getContentLength();
+                    if (!notModified && !filtered && contentLength >= 0) {
+                        builder.contentLength(contentLength);
+                    }
+                    return builder.body(notModified
+                            ? upstream.getBody().doOnNext(DataBufferUtils::release).thenMany(Flux.<DataBuffer>empty())
+                            : jsonFieldFilter.apply(route.getId(), upstream.getBody()));
+                })
+                .onErrorResume(e -> !(exchange.isIdempotent() && e instanceof UpstreamUnavailableException),
+                        e -> Mono.just(RouteDispatcher.textResponse(errorStatus(e), route.getErrorMessage() + e.getMessage())));
+    }
+
+    // Páginas y streaming no pasan por la caché de respuestas: nunca se junta el listado completo en memoria
+    public Mono<ResponseEntity<Flux<DataBuffer>>> forwardListing(RouteExchange exchange, ListingRequest listing) {
+        Route route = exchange.getRoute();
+        Mono<ResponseEntity<Flux<DataBuffer>>> call = upstreamRetry.apply(route.getId(),
+                () -> request(exchange, null)
+                        .retrieve()
+                        .toEntityFlux(DataBuffer.class));
+        if (route.getTimeout() != null) {
+            call = call.timeout(route.getTimeout());
+        }
+        return call
+                .map(upstream -> ResponseEntity.ok()
+                        .contentType(listing.getFormat().getMediaType())
+                        .body(listStreamer.stream(jsonFieldFilter.apply(route.getId(), upstream.getBody()),
+                                listing.getFormat(), listing.getOffset(), listing.getLimit(),
+                                ListingRequest::encodeCursor)))
+                .onErrorResume(e -> Mono.just(RouteDispatcher.textResponse(errorStatus(e),
+                        route.getErrorMessage() + e.getMessage())));
+    }
+
+    // Con una copia caducada cuyo ETag vino del upstream se le pregunta con If-None-Match; si responde 304 se reutiliza
+    // esa copia. Un ETag calculado por el ESB (o un cuerpo filtrado) no lo reconocería: se vuelve a pedir entero.
+    // Los errores se entregan como respuesta, para que la caché no los guarde
+    public Mono<ResponseEntity<byte[]>> aggregate(RouteExchange exchange, ResponseEntity<byte[]> stale) {
+        Route route = exchange.getRoute();
+        String staleTag = stale != null ? stale.getHeaders().getETag() : null;
+        String validator = staleTag != null && !EntityTags.isGenerated(staleTag) && !jsonFieldFilter.filters(route.getId())
+                ? staleTag : null;
+        // El cuerpo se junta dentro del intento: la latencia que guía la cobertura llega hasta el último byte
+        Mono<ResponseEntity<byte[]>> call = upstreamRetry.apply(route.getId(),
+                () -> {
+                    WebClient.RequestHeadersSpec<?> spec = request(exchange, exchange.getUpstreamBody());
+                    if (validator != null) {
+                        spec = spec.header(HttpHeaders.IF_NONE_MATCH, validator);
+                    }
+                    return spec.retrieve().toEntityFlux(DataBuffer.class).flatMap(upstream -> {
+                        if (validator != null && upstream.getStatusCode().value() == 304) {
+                            return upstream.getBody().doOnNext(DataBufferUtils::release).then(Mono.just(stale));
+                        }
+                        String upstreamTag = upstream.getHeaders().getETag();
+                        boolean filtered = jsonFieldFilter.filters(route.getId());
+                        boolean passThrough = EntityTags.isStrong(upstreamTag) && !filtered;
+                        long contentLength = filtered ? -1 : upstream.getHeaders().getContentLength();
+                        return jsonFieldFilter.apply(route.getId(), upstream.getBody())
+                                .collect(() -> new TaggedBody(contentLength), TaggedBody::append)
+                                .map(tagged -> aggregated(route, upstream.getHeaders(),
+                                        passThrough ? upstreamTag : tagged.etag(), tagged.bytes()));
+                    });
+                });
+        if (route.getTimeout() != null) {
+            call = call.timeout(route.getTimeout());
+        }
+        return call
+                .doOnNext(response -> invalidate(route))
+                .onErrorResume(e -> Mono.just(ResponseEntity.status(errorStatus(e))
+                        .contentType(RouteDispatcher.TEXT_UTF8)
+                        .body((route.getErrorMessage() + e.getMessage()).getBytes(StandardCharsets.UTF_8))));
+    }
+
+    // Solo los GET llevan ETag
+    private static ResponseEntity<byte[]> aggregated(Route route, HttpHeaders upstreamHeaders, String etag, byte[] body) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(contentType(upstreamHeaders));
+        if (route.getMethod() == HttpMethod.GET) {
+            builder.eTag(etag);
+        }
+        return builder.body(body);
+    }
+
+    private static WebClient.RequestHeadersSpec<?> request(RouteExchange exchange, byte[] body) {
+        Route route = exchange.getRoute();
+        WebClient.RequestBodySpec spec = route.getClient().method(route.getUpstreamMethod()).uri(exchange.getUri())
+                .attribute(RequestTiming.ATTRIBUTE, exchange.getTiming());
+        if (exchange.getForwardedToken() != null) {
+            spec.header(HttpHeaders.AUTHORIZATION, exchange.getForwardedToken());
+        }
+        if (body != null) {
+            return spec.contentType(MediaType.APPLICATION_JSON).bodyValue(body);
+        }
+        return spec;
+    }
+
+    private void invalidate(Route route) {
+        if (!route.getInvalidates().isEmpty()) {
+            responseCache.invalidate(route.getInvalidates().toArray(new String[0]));
+        }
+    }
+
+    private static MediaType contentType(HttpHeaders upstreamHeaders) {
+        MediaType contentType = upstreamHeaders.getContentType();
+        return contentType != null ? contentType : MediaType.APPLICATION_JSON;
+    }
+
+    // El 4xx del microservicio es una respuesta definitiva y se pasa tal cual (también la guarda el almacén de
+    // idempotencia). 503 si el ESB cortó la llamada (circuito abierto o bulkhead lleno), 504 si venció el timeout
+    private static int errorStatus(Throwable e) {
+        if (e instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()) {
+            return response.getStatusCode().value();
+        }
+        if (e instanceof UpstreamUnavailableException) {
+            return 503;
+        }
+        if (e instanceof TimeoutException) {
+            return 504;
+        }
+        return 500;
+    }
+}
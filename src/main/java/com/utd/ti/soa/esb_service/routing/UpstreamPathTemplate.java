@@ -0,0 +1,63 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.web.util.UriUtils;
+
+// Plantilla de la URL de destino precompilada en tramos literales y variables
+public final class UpstreamPathTemplate {
+
+    private final String[] literals;
+    private final String[] variables;
+    private final int estimatedLength;
+
+    private UpstreamPathTemplate(String[] literals, String[] variables) {
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.estimatedLength = length + variables.length * 8;
+    }
+
+    public static UpstreamPathTemplate compile(String baseUrl, String path) {
+        String template = stripTrailingSlash(baseUrl) + path;
+        List<String> literals = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        int start = 0;
+        int open;
+        while ((open = template.indexOf('{', start)) >= 0) {
+            int close = template.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Plantilla de ruta inválida: " + path);
+            }
+            literals.add(template.substring(start, open));
+            variables.add(template.substring(open + 1, close));
+            start = close + 1;
+        }
+        literals.add(template.substring(start));
+        return new UpstreamPathTemplate(literals.toArray(new String[0]), variables.toArray(new String[0]));
+    }
+
+    public URI expand(Map<String, String> values) {
+        StringBuilder uri = new StringBuilder(estimatedLength);
+        for (int i = 0; i < variables.length; i++) {
+            uri.append(literals[i]);
+            String value = values.get(variables[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("Falta la variable de ruta " + variables[i]);
+            }
+            uri.append(UriUtils.encodePathSegment(value, "UTF-8"));
+        }
+        uri.append(literals[variables.length]);
+        return URI.create(uri.toString());
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
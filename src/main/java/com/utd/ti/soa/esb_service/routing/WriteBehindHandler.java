@@ -0,0 +1,45 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.utd.ti.soa.esb_service.writebehind.WriteBehindQueue;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Rutas con async: true y "Prefer: respond-async": se encolan y se responde 202; va después de IdempotencyHandler,
+// de modo que un reintento con la misma clave recibe el mismo 202 y no crea otro trabajo
+@Component
+@Order(500)
+public class WriteBehindHandler implements RouteHandler {
+
+    private final WriteBehindQueue writeBehindQueue;
+
+    public WriteBehindHandler(WriteBehindQueue writeBehindQueue) {
+        this.writeBehindQueue = writeBehindQueue;
+    }
+
+    @Override
+    public Mono<ResponseEntity<Flux<DataBuffer>>> handle(RouteExchange exchange, Chain chain) {
+        Route route = exchange.getRoute();
+        if (!route.isAsync() || !writeBehindQueue.isEnabled() || !prefersAsync(exchange.getRequest().getHeaders())) {
+            return chain.next(exchange);
+        }
+        return writeBehindQueue.enqueue(route, exchange.getUri(), exchange.getForwardedToken(), exchange.getClaims(),
+                        exchange.getUpstreamBody())
+                .map(RouteDispatcher::toStreaming);
+    }
+
+    private static boolean prefersAsync(HttpHeaders headers) {
+        for (String prefer : headers.getValuesAsList("Prefer")) {
+            if (prefer.trim().equalsIgnoreCase(WriteBehindQueue.PREFER_ASYNC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,66 +1,137 @@
 package com.utd.ti.soa.esb_service.utils;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 
 import javax.crypto.SecretKey;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @Component
 public class Auth {
-    private final Map<String, String> SECRET_KEYS = new HashMap<>();
+    private static final ObjectMapper TOKEN_READER = new ObjectMapper();
+
+    private final Map<String, JwtParser> PARSERS = new HashMap<>();
+    private final Map<String, SecretKey> KEYS = new HashMap<>();
+    private final VerifiedTokenCache tokenCache;
 
     public Auth() {
+        this(10000, 300000L);
+    }
+
+    @Autowired
+    public Auth(@Value("${auth.cache.max-size:10000}") int cacheMaxSize,
+                @Value("${auth.cache.max-ttl-ms:300000}") long cacheMaxTtlMillis) {
+        this.tokenCache = new VerifiedTokenCache(cacheMaxSize, cacheMaxTtlMillis);
         // Usa las mismas claves largas que en Node.js
-        SECRET_KEYS.put("admin", System.getenv("ADMIN_SECRET_KEY") != null ? 
+        registerKey("admin", System.getenv("ADMIN_SECRET_KEY") != null ? 
             System.getenv("ADMIN_SECRET_KEY") : "adminSecretKey12345678901234567890123456789012");
-        SECRET_KEYS.put("customer", System.getenv("CUSTOMER_SECRET_KEY") != null ? 
+        registerKey("customer", System.getenv("CUSTOMER_SECRET_KEY") != null ? 
             System.getenv("CUSTOMER_SECRET_KEY") : "customerSecretKey1234567890123456789012345678");
-        SECRET_KEYS.put("seller", System.getenv("SELLER_SECRET_KEY") != null ? 
+        registerKey("seller", System.getenv("SELLER_SECRET_KEY") != null ? 
             System.getenv("SELLER_SECRET_KEY") : "sellerSecretKey123456789012345678901234567890");
     }
 
+    // La clave y el parser de cada rol se construyen una sola vez y se comparten entre peticiones
+    private void registerKey(String role, String secretKey) {
+        SecretKey key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        KEYS.put(role, key);
+        PARSERS.put(role, Jwts.parserBuilder()
+            .setSigningKey(key)
+            .build());
+    }
+
+    // Firma y verifica un token desechable por rol para que la primera petición no cargue jjwt, Jackson ni HMAC;
+    // no pasa por la caché de tokens ni por sus métricas
+    public void warmUp() {
+        KEYS.forEach((role, key) -> {
+            String jwt = Jwts.builder()
+                .setHeaderParam("kid", role)
+                .setSubject("warmup")
+                .claim("rol", role)
+                .signWith(key)
+                .compact();
+            try {
+                PARSERS.get(resolveRole(jwt)).parseClaimsJws(jwt);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
     public Claims validateToken(String token) {
         try {
             String processedToken = token.startsWith("Bearer ") ? token.substring(7) : token;
 
-            for (Map.Entry<String, String> entry : SECRET_KEYS.entrySet()) {
-                String role = entry.getKey();
-                String secretKey = entry.getValue();
-
-                try {
-                    SecretKey key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
-                    Jws<Claims> jws = Jwts.parserBuilder()
-                        .setSigningKey(key)
-                        .build()
-                        .parseClaimsJws(processedToken);
-
-                    Claims claims = jws.getBody();
-                    String tokenRole = claims.get("rol", String.class);
-
-                    if (role.equals(tokenRole)) {
-                        System.out.println("Token válido para rol: " + role + ", usuario: " + claims.getSubject());
-                        return claims;
-                    }
-                } catch (Exception e) {
-                    System.out.println("Fallo al validar con rol " + role + ": " + e.getMessage());
-                    continue;
+            Claims cached = tokenCache.get(processedToken);
+            if (cached != null) {
+                return cached;
+            }
+
+            String role = resolveRole(processedToken);
+            JwtParser parser = role != null ? PARSERS.get(role) : null;
+            if (parser == null) {
+                log.debug("No se encontró una clave válida para el token");
+                return null;
+            }
+
+            try {
+                Claims claims = parser.parseClaimsJws(processedToken).getBody();
+                String tokenRole = claims.get("rol", String.class);
+
+                if (role.equals(tokenRole)) {
+                    log.debug("Token válido para rol: {}, usuario: {}", role, claims.getSubject());
+                    tokenCache.put(processedToken, claims);
+                    return claims;
                 }
+                log.debug("El rol del token no coincide con la clave {}", role);
+                return null;
+            } catch (Exception e) {
+                log.debug("Fallo al validar con rol {}: {}", role, e.getMessage());
+                return null;
             }
-            System.out.println("No se encontró una clave válida para el token");
-            return null;
         } catch (Exception e) {
-            System.out.println("Error al validar el token: " + e.getMessage());
+            log.debug("Error al validar el token: {}", e.getMessage());
             return null;
         }
     }
 
+    // Lee sin verificar el "kid" de la cabecera o el "rol" del payload para elegir la única clave a probar
+    private String resolveRole(String jwt) throws IOException {
+        int firstDot = jwt.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : jwt.indexOf('.', firstDot + 1);
+        if (secondDot < 0) {
+            return null;
+        }
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+
+        JsonNode header = TOKEN_READER.readTree(decoder.decode(jwt.substring(0, firstDot)));
+        JsonNode kid = header.get("kid");
+        if (kid != null && kid.isTextual() && PARSERS.containsKey(kid.asText())) {
+            return kid.asText();
+        }
+
+        JsonNode payload = TOKEN_READER.readTree(decoder.decode(jwt.substring(firstDot + 1, secondDot)));
+        JsonNode rol = payload.get("rol");
+        return rol != null && rol.isTextual() ? rol.asText() : null;
+    }
+
     public boolean hasRole(String token, String... allowedRoles) {
         Claims claims = validateToken(token);
         if (claims == null) {
@@ -75,4 +146,12 @@ public class Auth {
         }
         return false;
     }
+
+    public long getCacheHits() {
+        return tokenCache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return tokenCache.getMisses();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.utd.ti.soa.esb_service.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.utd.ti.soa.esb_service.config.EncodingProperties;
+
+// Smile y CBOR para consumidores internos: los microservicios siguen hablando JSON y el ESB traduce en ambos sentidos
+@Component
+@EnableConfigurationProperties(EncodingProperties.class)
+public class BinaryCodec {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    private final EncodingProperties properties;
+    private final ObjectMapper json;
+    private final ObjectMapper smile;
+    private final ObjectMapper cbor;
+
+    public BinaryCodec(EncodingProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.json = objectMapper;
+        this.smile = objectMapper.copyWith(new SmileFactory());
+        this.cbor = objectMapper.copyWith(new CBORFactory());
+    }
+
+    public boolean isEnabled() {
+        return properties.isBinaryEnabled();
+    }
+
+    // Formato binario que prefiere el cliente según Accept, o null si se queda en JSON
+    public MediaType negotiate(HttpHeaders requestHeaders) {
+        if (!isEnabled()) {
+            return null;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(requestHeaders.getAccept());
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.isWildcardType() || mediaType.isWildcardSubtype() || isJson(mediaType)) {
+                return null;
+            }
+            if (mapperFor(mediaType) != null) {
+                return mediaType.equalsTypeAndSubtype(APPLICATION_SMILE) ? APPLICATION_SMILE : MediaType.APPLICATION_CBOR;
+            }
+        }
+        return null;
+    }
+
+    // Mapper para leer un cuerpo entrante en Smile o CBOR, o null si es JSON (u otro)
+    public ObjectMapper mapperFor(MediaType contentType) {
+        if (!isEnabled() || contentType == null) {
+            return null;
+        }
+        if (contentType.equalsTypeAndSubtype(APPLICATION_SMILE)) {
+            return smile;
+        }
+        if (contentType.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) {
+            return cbor;
+        }
+        return null;
+    }
+
+    // Token a token, sin construir los objetos del modelo ni el árbol del documento
+    public byte[] transcode(byte[] body, MediaType format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(32, body.length / 2));
+        try (JsonParser parser = json.getFactory().createParser(body);
+             JsonGenerator generator = mapperFor(format).getFactory().createGenerator(output)) {
+            while (parser.nextToken() != null) {
+                generator.copyCurrentEvent(parser);
+            }
+        }
+        return output.toByteArray();
+    }
+
+    // Sufijo del ETag de cada representación: un ETag fuerte no se comparte entre codificaciones
+    public static String variant(String etag, MediaType format) {
+        String suffix = format.equalsTypeAndSubtype(APPLICATION_SMILE) ? "smile" : "cbor";
+        return etag.substring(0, etag.length() - 1) + "-" + suffix + "\"";
+    }
+
+    public static boolean isJson(MediaType mediaType) {
+        return mediaType != null && (MediaType.APPLICATION_JSON.equalsTypeAndSubtype(mediaType)
+                || "json".equals(mediaType.getSubtypeSuffix()));
+    }
+}
@@ -0,0 +1,138 @@
+package com.utd.ti.soa.esb_service.utils;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+import com.utd.ti.soa.esb_service.config.RateLimitProperties;
+
+import io.netty.util.NetUtil;
+
+// IP del cliente para las cubetas sin token. Forwarded / X-Forwarded-For solo se creen si la conexión viene de un
+// proxy de esb.rate-limit.trusted-proxies: se recorre la cadena de derecha a izquierda saltando los proxies de
+// confianza y se toma la primera dirección que no lo es. Sin proxies configurados cuenta solo el socket
+@Component
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class ClientAddressResolver {
+
+    private final List<Network> trustedProxies = new ArrayList<>();
+
+    public ClientAddressResolver(RateLimitProperties properties) {
+        for (String proxy : properties.getTrustedProxies()) {
+            trustedProxies.add(Network.parse(proxy));
+        }
+    }
+
+    public String resolve(ServerHttpRequest request) {
+        InetSocketAddress peer = request.getRemoteAddress();
+        String address = peer != null && peer.getAddress() != null ? peer.getAddress().getHostAddress() : null;
+        if (address == null || !trusted(address)) {
+            return address;
+        }
+        List<String> chain = forwardedFor(request.getHeaders());
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            // Un valor que no es una IP (p. ej. "unknown") corta la cadena: no se puede saber quién lo añadió
+            byte[] hop = NetUtil.createByteArrayFromIpAddressString(chain.get(i));
+            if (hop == null) {
+                break;
+            }
+            // Forma canónica: la misma IP escrita de otra manera no abre otra cubeta
+            address = NetUtil.bytesToIpAddress(hop);
+            if (!trusted(address)) {
+                break;
+            }
+        }
+        return address;
+    }
+
+    private boolean trusted(String address) {
+        byte[] bytes = NetUtil.createByteArrayFromIpAddressString(address);
+        if (bytes == null) {
+            return false;
+        }
+        for (Network network : trustedProxies) {
+            if (network.contains(bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Forwarded (RFC 7239) si viene; si no, X-Forwarded-For. Cada salto sin puerto, comillas ni corchetes
+    private static List<String> forwardedFor(HttpHeaders headers) {
+        List<String> hops = new ArrayList<>();
+        List<String> forwarded = headers.get("Forwarded");
+        if (forwarded != null) {
+            for (String header : forwarded) {
+                for (String element : header.split(",")) {
+                    String hop = null;
+                    for (String pair : element.split(";")) {
+                        String[] parts = pair.trim().split("=", 2);
+                        if (parts.length == 2 && parts[0].equalsIgnoreCase("for")) {
+                            hop = parts[1].trim();
+                        }
+                    }
+                    hops.add(hop != null ? stripForwardedNode(hop) : "");
+                }
+            }
+            return hops;
+        }
+        for (String header : headers.getOrEmpty("X-Forwarded-For")) {
+            for (String hop : header.split(",")) {
+                hops.add(hop.trim());
+            }
+        }
+        return hops;
+    }
+
+    private static String stripForwardedNode(String node) {
+        String value = node.startsWith("\"") && node.endsWith("\"") && node.length() > 1
+                ? node.substring(1, node.length() - 1) : node;
+        if (value.startsWith("[")) {
+            int end = value.indexOf(']');
+            return end > 0 ? value.substring(1, end) : value;
+        }
+        int colon = value.indexOf(':');
+        return colon > 0 && value.indexOf(':', colon + 1) < 0 ? value.substring(0, colon) : value;
+    }
+
+    // Una IP o un rango CIDR (10.0.0.0/8, fc00::/7)
+    private record Network(byte[] address, int prefix) {
+
+        static Network parse(String cidr) {
+            String[] parts = cidr.trim().split("/", 2);
+            byte[] address = NetUtil.createByteArrayFromIpAddressString(parts[0]);
+            if (address == null) {
+                throw new IllegalStateException("Proxy de confianza inválido en esb.rate-limit.trusted-proxies: " + cidr);
+            }
+            int prefix = parts.length == 2 ? Integer.parseInt(parts[1]) : address.length * 8;
+            if (prefix < 0 || prefix > address.length * 8) {
+                throw new IllegalStateException("Prefijo inválido en esb.rate-limit.trusted-proxies: " + cidr);
+            }
+            return new Network(address, prefix);
+        }
+
+        boolean contains(byte[] candidate) {
+            if (candidate.length != address.length) {
+                return false;
+            }
+            int full = prefix / 8;
+            for (int i = 0; i < full; i++) {
+                if (candidate[i] != address[i]) {
+                    return false;
+                }
+            }
+            int rest = prefix % 8;
+            if (rest == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - rest) & 0xFF;
+            return (candidate[full] & mask) == (address[full] & mask);
+        }
+    }
+}
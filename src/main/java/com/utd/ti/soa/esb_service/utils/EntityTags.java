@@ -0,0 +1,61 @@
+package com.utd.ti.soa.esb_service.utils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+// ETags fuertes de los GET: SHA-256 del cuerpo (ver TaggedBody). Las etiquetas que calcula el ESB llevan el prefijo "esb-" para
+// distinguirlas de las del upstream, que son las únicas que el upstream puede reconocer al revalidar
+public final class EntityTags {
+
+    private static final int TAG_BYTES = 16;
+    private static final String GENERATED_PREFIX = "\"esb-";
+
+    private EntityTags() {
+    }
+
+    // Las etiquetas débiles (W/"...") no sirven para pasarlas tal cual como fuertes
+    public static boolean isStrong(String etag) {
+        return etag != null && etag.length() > 1 && etag.startsWith("\"") && etag.endsWith("\"");
+    }
+
+    public static boolean isGenerated(String etag) {
+        return etag != null && etag.startsWith(GENERATED_PREFIX);
+    }
+
+    // If-None-Match usa comparación débil: se ignora el prefijo W/ de ambos lados
+    public static boolean matches(List<String> ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String opaque = opaque(etag);
+        for (String header : ifNoneMatch) {
+            for (String candidate : header.split(",")) {
+                String value = candidate.trim();
+                if (value.equals("*") || opaque(value).equals(opaque)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    static String format(MessageDigest digest) {
+        byte[] hash = Arrays.copyOf(digest.digest(), TAG_BYTES);
+        return GENERATED_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.utd.ti.soa.esb_service.utils;
+
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+// Decide en qué hilo corre cada handler del ESB según esb.execution.mode
+@Component
+public class HandlerExecutor implements DisposableBean {
+
+    public enum Mode {
+        // Todo el handler se encadena en el event loop de Netty, sin bloquear
+        REACTIVE,
+        // El handler y su .block() corren en un hilo virtual por petición
+        VIRTUAL,
+        // El handler y su .block() corren en un pool elástico de hilos de plataforma
+        ELASTIC
+    }
+
+    private final Mode mode;
+    private final Scheduler scheduler;
+
+    public HandlerExecutor(@Value("${esb.execution.mode:reactive}") String mode,
+                           @Value("${esb.execution.elastic-threads:200}") int elasticThreads) {
+        this.mode = Mode.valueOf(mode.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        switch (this.mode) {
+            case VIRTUAL:
+                this.scheduler = Schedulers.fromExecutorService(
+                        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("esb-virtual-", 0).factory()),
+                        "esb-virtual");
+                break;
+            case ELASTIC:
+                this.scheduler = Schedulers.newBoundedElastic(elasticThreads, Integer.MAX_VALUE, "esb-elastic");
+                break;
+            default:
+                this.scheduler = null;
+        }
+    }
+
+    public <T> Mono<T> execute(Supplier<Mono<T>> handler) {
+        if (scheduler == null) {
+            return Mono.defer(handler);
+        }
+        return Mono.fromCallable(() -> handler.get().block()).subscribeOn(scheduler);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.dispose();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.utd.ti.soa.esb_service.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.utd.ti.soa.esb_service.config.PassthroughProperties;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Elimina campos de un cuerpo JSON token a token, sin construir objetos ni el documento completo
+@Component
+@EnableConfigurationProperties(PassthroughProperties.class)
+public class JsonFieldFilter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final PassthroughProperties properties;
+    private final DataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    public JsonFieldFilter(PassthroughProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean filters(String route) {
+        return !properties.dropFieldsFor(route).isEmpty();
+    }
+
+    public Flux<DataBuffer> apply(String route, Flux<DataBuffer> body) {
+        Set<String> dropFields = properties.dropFieldsFor(route);
+        if (dropFields.isEmpty()) {
+            return body;
+        }
+        return Flux.defer(() -> {
+            Projection projection = new Projection(dropFields);
+            return body.map(projection::feed)
+                    .concatWith(Mono.fromCallable(projection::finish))
+                    .filter(buffer -> {
+                        if (buffer.readableByteCount() > 0) {
+                            return true;
+                        }
+                        DataBufferUtils.release(buffer);
+                        return false;
+                    });
+        });
+    }
+
+    private final class Projection {
+        private final Set<String> dropFields;
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private final JsonParser parser;
+        private final JsonGenerator generator;
+        private boolean skipValue;
+        private int skipDepth;
+
+        private Projection(Set<String> dropFields) {
+            this.dropFields = dropFields;
+            try {
+                this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+                this.generator = JSON_FACTORY.createGenerator(output);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private DataBuffer feed(DataBuffer input) {
+            try {
+                byte[] chunk = new byte[input.readableByteCount()];
+                input.read(chunk);
+                ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(chunk, 0, chunk.length);
+                return drain();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                DataBufferUtils.release(input);
+            }
+        }
+
+        private DataBuffer finish() throws IOException {
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).endOfInput();
+            DataBuffer last = drain();
+            generator.close();
+            return last;
+        }
+
+        private DataBuffer drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (skipDepth > 0) {
+                    if (token.isStructStart()) {
+                        skipDepth++;
+                    } else if (token.isStructEnd()) {
+                        skipDepth--;
+                    }
+                } else if (skipValue) {
+                    skipValue = false;
+                    if (token.isStructStart()) {
+                        skipDepth = 1;
+                    }
+                } else if (token == JsonToken.FIELD_NAME && dropFields.contains(parser.currentName())) {
+                    skipValue = true;
+                } else {
+                    generator.copyCurrentEventExact(parser);
+                }
+            }
+            generator.flush();
+            DataBuffer buffer = bufferFactory.wrap(output.toByteArray());
+            output.reset();
+            return buffer;
+        }
+    }
+}
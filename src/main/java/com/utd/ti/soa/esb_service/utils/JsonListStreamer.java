@@ -0,0 +1,217 @@
+package com.utd.ti.soa.esb_service.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongFunction;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Parte un listado JSON ([...]) que llega por trozos en sus elementos y los reemite uno a uno a medida que se leen,
+// sin tener nunca el listado completo en memoria. Al completar la página deja de leer del upstream
+@Component
+public class JsonListStreamer {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    public enum Format {
+        // Página como {"items":[...],"nextCursor":...}
+        JSON(MediaType.APPLICATION_JSON),
+        // Un elemento por línea
+        NDJSON(MediaType.APPLICATION_NDJSON),
+        // Un evento "data:" por elemento y, si hay más, un evento "next" con el cursor siguiente
+        SSE(MediaType.TEXT_EVENT_STREAM);
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+    }
+
+    private final DataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    // limit < 0 emite todos los elementos desde offset; nextCursor recibe el offset de la página siguiente
+    public Flux<DataBuffer> stream(Flux<DataBuffer> body, Format format, long offset, long limit,
+                                   LongFunction<String> nextCursor) {
+        return Flux.defer(() -> {
+            Splitter splitter = new Splitter(format, offset, limit, nextCursor);
+            return Flux.concat(
+                            Mono.fromCallable(splitter::start),
+                            body.takeUntil(chunk -> splitter.done).map(splitter::feed),
+                            Mono.fromCallable(splitter::finish))
+                    .filter(buffer -> {
+                        if (buffer.readableByteCount() > 0) {
+                            return true;
+                        }
+                        DataBufferUtils.release(buffer);
+                        return false;
+                    });
+        });
+    }
+
+    private final class Splitter {
+        private final Format format;
+        private final long offset;
+        private final long end;
+        private final LongFunction<String> nextCursor;
+        private final ByteArrayOutputStream element = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private final JsonParser parser;
+        private final JsonGenerator generator;
+        // 0 fuera del listado, 1 dentro del array, >1 dentro de un elemento
+        private int depth;
+        private long index;
+        private long emitted;
+        private boolean copying;
+        private volatile boolean done;
+        private boolean hasNext;
+
+        private Splitter(Format format, long offset, long limit, LongFunction<String> nextCursor) {
+            this.format = format;
+            this.offset = offset;
+            this.end = limit < 0 ? Long.MAX_VALUE : offset + limit;
+            this.nextCursor = nextCursor;
+            try {
+                this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+                this.generator = JSON_FACTORY.createGenerator(element);
+                // Cada elemento se escribe como valor raíz; sin separador entre uno y otro
+                this.generator.setRootValueSeparator(null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private DataBuffer start() {
+            return format == Format.JSON ? wrap("{\"items\":[") : wrap("");
+        }
+
+        private DataBuffer feed(DataBuffer input) {
+            try {
+                // Trozos que llegan antes de que se propague la cancelación se descartan
+                if (done) {
+                    return bufferFactory.wrap(new byte[0]);
+                }
+                byte[] chunk = new byte[input.readableByteCount()];
+                input.read(chunk);
+                ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(chunk, 0, chunk.length);
+                drain();
+                DataBuffer buffer = bufferFactory.wrap(output.toByteArray());
+                output.reset();
+                return buffer;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                DataBufferUtils.release(input);
+            }
+        }
+
+        private DataBuffer finish() throws IOException {
+            if (!done) {
+                ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).endOfInput();
+                drain();
+                if (!done) {
+                    throw new IllegalStateException("El microservicio no devolvió un listado JSON completo");
+                }
+            }
+            String cursor = hasNext ? nextCursor.apply(end) : null;
+            if (format == Format.JSON) {
+                output.write(("],\"nextCursor\":" + (cursor != null ? "\"" + cursor + "\"" : "null") + "}")
+                        .getBytes(StandardCharsets.UTF_8));
+            } else if (format == Format.SSE && cursor != null) {
+                output.write(("event: next\ndata: " + cursor + "\n\n").getBytes(StandardCharsets.UTF_8));
+            }
+            DataBuffer buffer = bufferFactory.wrap(output.toByteArray());
+            output.reset();
+            return buffer;
+        }
+
+        private void drain() throws IOException {
+            JsonToken token;
+            while (!done && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (depth == 0) {
+                    if (token != JsonToken.START_ARRAY) {
+                        throw new IllegalStateException("El microservicio no devolvió un listado JSON");
+                    }
+                    depth = 1;
+                } else if (depth == 1) {
+                    if (token == JsonToken.END_ARRAY) {
+                        done = true;
+                    } else if (index >= end) {
+                        // Empieza un elemento más allá de la página: hay página siguiente y se deja de leer
+                        hasNext = true;
+                        done = true;
+                    } else {
+                        copying = index >= offset;
+                        if (copying) {
+                            generator.copyCurrentEventExact(parser);
+                        }
+                        if (token.isStructStart()) {
+                            depth = 2;
+                        } else {
+                            endElement();
+                        }
+                    }
+                } else {
+                    if (copying) {
+                        generator.copyCurrentEventExact(parser);
+                    }
+                    if (token.isStructStart()) {
+                        depth++;
+                    } else if (token.isStructEnd() && --depth == 1) {
+                        endElement();
+                    }
+                }
+            }
+        }
+
+        private void endElement() throws IOException {
+            if (copying) {
+                generator.flush();
+                switch (format) {
+                    case JSON:
+                        if (emitted > 0) {
+                            output.write(',');
+                        }
+                        element.writeTo(output);
+                        break;
+                    case NDJSON:
+                        element.writeTo(output);
+                        output.write('\n');
+                        break;
+                    default:
+                        output.write("data: ".getBytes(StandardCharsets.UTF_8));
+                        element.writeTo(output);
+                        output.write("\n\n".getBytes(StandardCharsets.UTF_8));
+                }
+                element.reset();
+                emitted++;
+                copying = false;
+            }
+            index++;
+        }
+
+        private DataBuffer wrap(String text) {
+            return bufferFactory.wrap(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.utd.ti.soa.esb_service.utils;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.utd.ti.soa.esb_service.config.CacheProperties;
+
+import reactor.core.publisher.Mono;
+
+// Caché LRU de lectura para las rutas GET; las peticiones simultáneas a la misma clave comparten una sola llamada
+@Component
+@EnableConfigurationProperties(CacheProperties.class)
+public class ResponseCache {
+
+    private final CacheProperties properties;
+    private final LinkedHashMap<String, Entry> entries;
+    private final Map<String, Mono<ResponseEntity<byte[]>>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+
+    public ResponseCache(CacheProperties properties) {
+        this.properties = properties;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ResponseCache.this.properties.getMaxSize();
+            }
+        };
+    }
+
+    public boolean caches(String route) {
+        Duration ttl = properties.getTtl().get(route);
+        return properties.isEnabled() && ttl != null && !ttl.isZero();
+    }
+
+    public Mono<ResponseEntity<byte[]>> get(String route, String role, String key,
+                                            Supplier<Mono<ResponseEntity<byte[]>>> loader) {
+        return get(route, role, key, stale -> loader.get());
+    }
+
+    // La clave incluye el rol para que una respuesta de admin nunca se sirva a otro rol.
+    // Una entrada caducada se pasa al loader para que la revalide; si devuelve esa misma respuesta, se renueva
+    public Mono<ResponseEntity<byte[]>> get(String route, String role, String key,
+                                            Function<ResponseEntity<byte[]>, Mono<ResponseEntity<byte[]>>> loader) {
+        if (!caches(route)) {
+            return loader.apply(null);
+        }
+        Duration ttl = properties.getTtl().get(route);
+        String cacheKey = route + "|" + role + "|" + key;
+        long now = System.currentTimeMillis();
+        ResponseEntity<byte[]> stale = null;
+        synchronized (entries) {
+            Entry entry = entries.get(cacheKey);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hits.increment();
+                    return Mono.just(entry.response);
+                }
+                entries.remove(cacheKey);
+                stale = entry.response;
+            }
+        }
+        misses.increment();
+        ResponseEntity<byte[]> expired = stale;
+
+        return inFlight.computeIfAbsent(cacheKey, k -> {
+            long generation = generation(route).get();
+            // Se retira de inFlight antes de emitir para que ninguna petición posterior reciba esta carga;
+            // solo si sigue siendo esta, porque tras invalidate() puede haber otra carga en curso con la misma clave
+            AtomicReference<Mono<ResponseEntity<byte[]>>> load = new AtomicReference<>();
+            load.set(Mono.defer(() -> loader.apply(expired))
+                    .doOnNext(response -> {
+                        if (expired != null && response == expired) {
+                            revalidations.increment();
+                        }
+                        store(route, cacheKey, response, ttl, generation);
+                        inFlight.remove(k, load.get());
+                    })
+                    .doOnTerminate(() -> inFlight.remove(k, load.get()))
+                    .cache());
+            return load.get();
+        });
+    }
+
+    public void invalidate(String... routes) {
+        synchronized (entries) {
+            for (String route : routes) {
+                generation(route).incrementAndGet();
+                entries.keySet().removeIf(cacheKey -> cacheKey.startsWith(route + "|"));
+                inFlight.keySet().removeIf(cacheKey -> cacheKey.startsWith(route + "|"));
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // Fallos que el upstream resolvió con un 304 sobre la copia caducada
+    public long getRevalidations() {
+        return revalidations.sum();
+    }
+
+    private void store(String route, String cacheKey, ResponseEntity<byte[]> response, Duration ttl, long generation) {
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return;
+        }
+        synchronized (entries) {
+            // Si hubo una escritura mientras se cargaba, la respuesta puede estar desactualizada
+            if (generation(route).get() == generation) {
+                entries.put(cacheKey, new Entry(response, System.currentTimeMillis() + ttl.toMillis()));
+            }
+        }
+    }
+
+    private AtomicLong generation(String route) {
+        return generations.computeIfAbsent(route, r -> new AtomicLong());
+    }
+
+    private static final class Entry {
+        private final ResponseEntity<byte[]> response;
+        private final long expiresAt;
+
+        private Entry(ResponseEntity<byte[]> response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
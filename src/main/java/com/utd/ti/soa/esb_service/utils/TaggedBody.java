@@ -0,0 +1,48 @@
+package com.utd.ti.soa.esb_service.utils;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+// Cuerpo de una respuesta que se guarda (caché, idempotencia): cada buffer del upstream se añade al hash según llega
+// y se copia una sola vez al arreglo final, que con Content-Length se reserva ya de su tamaño exacto
+public final class TaggedBody {
+
+    private final MessageDigest digest = EntityTags.sha256();
+    private byte[] bytes;
+    private int length;
+
+    public TaggedBody(long contentLength) {
+        this.bytes = new byte[contentLength > 0 && contentLength < Integer.MAX_VALUE - 8 ? (int) contentLength : 1024];
+    }
+
+    // Libera el buffer: a partir de aquí solo queda la copia
+    public TaggedBody append(DataBuffer buffer) {
+        try {
+            int readable = buffer.readableByteCount();
+            if (length + readable > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + readable, bytes.length * 2));
+            }
+            try (DataBuffer.ByteBufferIterator buffers = buffer.readableByteBuffers()) {
+                while (buffers.hasNext()) {
+                    digest.update(buffers.next());
+                }
+            }
+            buffer.read(bytes, length, readable);
+            length += readable;
+            return this;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    public String etag() {
+        return EntityTags.format(digest);
+    }
+
+    public byte[] bytes() {
+        return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+    }
+}
@@ -0,0 +1,41 @@
+package com.utd.ti.soa.esb_service.writebehind;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Escritura aceptada en modo asíncrono; cada cambio de estado se añade entero al registro en disco
+@Getter
+@Setter
+@NoArgsConstructor
+public class WriteBehindJob {
+
+    public enum Status {
+        PENDING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    private String id;
+    private String route;
+    // URI del microservicio ya resuelta con las variables de la ruta
+    private String uri;
+    // Cabecera Authorization que se reenvía; solo la guardan los trabajos pendientes y, si caduca antes del envío,
+    // el trabajo falla sin llamar al microservicio
+    private String token;
+    private String subject;
+    private byte[] body;
+    private volatile Status status = Status.PENDING;
+    private volatile int attempts;
+    private volatile Integer httpStatus;
+    private volatile String response;
+    private long createdAt;
+    private volatile Long finishedAt;
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status != Status.PENDING;
+    }
+}
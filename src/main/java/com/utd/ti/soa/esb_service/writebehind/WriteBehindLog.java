@@ -0,0 +1,130 @@
+package com.utd.ti.soa.esb_service.writebehind;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Registro de solo escritura al final: una línea JSON por cambio de estado de un trabajo. Al reproducirlo gana la
+// última línea de cada id; una línea a medias por una caída se descarta. Los trabajos pendientes llevan el token del
+// cliente, así que el archivo solo lo puede leer el usuario del ESB (en sistemas POSIX)
+@Slf4j
+class WriteBehindLog implements Closeable {
+
+    private static final Set<PosixFilePermission> OWNER_ONLY =
+            EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE);
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private FileChannel channel;
+    private long size;
+
+    WriteBehindLog(Path directory, ObjectMapper objectMapper) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve("jobs.log");
+        this.objectMapper = objectMapper;
+        open();
+    }
+
+    synchronized Map<String, WriteBehindJob> replay() throws IOException {
+        Map<String, WriteBehindJob> jobs = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    WriteBehindJob job = objectMapper.readValue(line, WriteBehindJob.class);
+                    jobs.put(job.getId(), job);
+                } catch (JsonProcessingException e) {
+                    log.warn("Línea del registro de trabajos descartada: {}", e.getOriginalMessage());
+                }
+            }
+        }
+        return jobs;
+    }
+
+    // Vuelve del método cuando las líneas ya están en disco
+    synchronized void append(Collection<WriteBehindJob> jobs) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(serialize(jobs));
+        while (buffer.hasRemaining()) {
+            size += channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    // Sustituye el registro, de forma atómica, por una línea por trabajo vigente
+    synchronized void rewrite(Collection<WriteBehindJob> jobs) throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(compacted, Set.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING), ownerOnly(compacted))) {
+            ByteBuffer buffer = ByteBuffer.wrap(serialize(jobs));
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+        }
+        channel.close();
+        Files.move(compacted, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        open();
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(file, Set.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND), ownerOnly(file));
+        if (isPosix(file)) {
+            // Un registro creado por una versión anterior puede tener permisos más abiertos
+            Files.setPosixFilePermissions(file, OWNER_ONLY);
+        }
+        size = channel.size();
+    }
+
+    private static FileAttribute<?>[] ownerOnly(Path path) {
+        return isPosix(path)
+                ? new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(OWNER_ONLY)}
+                : new FileAttribute<?>[0];
+    }
+
+    private static boolean isPosix(Path path) {
+        return path.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    private byte[] serialize(Collection<WriteBehindJob> jobs) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (WriteBehindJob job : jobs) {
+            out.write(objectMapper.writeValueAsBytes(job));
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,342 @@
+package com.utd.ti.soa.esb_service.writebehind;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.utd.ti.soa.esb_service.config.WriteBehindProperties;
+import com.utd.ti.soa.esb_service.metrics.GatewayMetrics;
+import com.utd.ti.soa.esb_service.metrics.RequestTiming;
+import com.utd.ti.soa.esb_service.routing.Route;
+import com.utd.ti.soa.esb_service.routing.RouteDispatcher;
+import com.utd.ti.soa.esb_service.routing.RouteTable;
+import com.utd.ti.soa.esb_service.utils.Auth;
+import com.utd.ti.soa.esb_service.utils.ResponseCache;
+
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+// Cola de escrituras asíncronas: se aceptan con 202 en cuanto están en disco y unos workers propios las envían por
+// lotes al microservicio, con reintentos y backoff. Entrega al menos una vez: un trabajo en curso al caer el ESB
+// se vuelve a enviar al arrancar
+@Slf4j
+@Component
+@EnableConfigurationProperties(WriteBehindProperties.class)
+public class WriteBehindQueue implements DisposableBean {
+
+    public static final String PREFER_ASYNC = "respond-async";
+    public static final String STATUS_ROUTE_ID = "job-status";
+    private static final String JOBS_PATH = "/app/esb/jobs/";
+
+    private final WriteBehindProperties properties;
+    private final RouteTable routeTable;
+    private final ResponseCache responseCache;
+    private final Auth auth;
+    private final GatewayMetrics metrics;
+    private final ObjectMapper objectMapper;
+    private final Map<String, WriteBehindJob> jobs = new ConcurrentHashMap<>();
+    private final BlockingQueue<WriteBehindJob> pending = new LinkedBlockingQueue<>();
+    private final WriteBehindLog journal;
+    private final ScheduledExecutorService retries;
+    private final List<Thread> workers = new ArrayList<>();
+    // Un trabajo aceptado entra en el registro y en jobs a la vez respecto a la compactación, que reescribe jobs
+    private final Object compaction = new Object();
+    private volatile boolean running = true;
+
+    public WriteBehindQueue(WriteBehindProperties properties, RouteTable routeTable, ResponseCache responseCache,
+                            Auth auth, GatewayMetrics metrics, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.routeTable = routeTable;
+        this.responseCache = responseCache;
+        this.auth = auth;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        if (!properties.isEnabled()) {
+            this.journal = null;
+            this.retries = null;
+            return;
+        }
+        try {
+            this.journal = new WriteBehindLog(Path.of(properties.getDirectory()), objectMapper);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el registro de escrituras asíncronas", e);
+        }
+        this.retries = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("esb-write-behind-retry").factory());
+        for (int i = 0; i < properties.getWorkers(); i++) {
+            workers.add(Thread.ofPlatform().name("esb-write-behind-", i).start(this::work));
+        }
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    // La respuesta 202 sale cuando el trabajo ya está en disco; la escritura se hace fuera del event loop
+    public Mono<ResponseEntity<byte[]>> enqueue(Route route, URI uri, String token, Claims claims, byte[] body) {
+        return Mono.fromCallable(() -> {
+                    WriteBehindJob job = new WriteBehindJob();
+                    job.setId(UUID.randomUUID().toString());
+                    job.setRoute(route.getId());
+                    job.setUri(uri.toString());
+                    job.setToken(token);
+                    job.setSubject(claims != null ? claims.getSubject() : null);
+                    job.setBody(body);
+                    job.setCreatedAt(System.currentTimeMillis());
+                    synchronized (compaction) {
+                        journal.append(List.of(job));
+                        jobs.put(job.getId(), job);
+                    }
+                    pending.offer(job);
+                    return job;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(job -> jsonResponse(202, job));
+    }
+
+    // Solo lo consulta quien lo creó o un admin
+    public Mono<ResponseEntity<Flux<DataBuffer>>> status(String token, String id) {
+        RequestTiming timing = metrics.start(STATUS_ROUTE_ID, HttpMethod.GET);
+        return metrics.observe(timing, Mono.fromSupplier(() -> {
+            if (token == null) {
+                return RouteDispatcher.textResponse(400, "Falta la cabecera Authorization");
+            }
+            Claims claims = metrics.timeAuth(() -> auth.validateToken(token));
+            if (claims == null) {
+                return RouteDispatcher.textResponse(401, "Token inválido o expirado");
+            }
+            WriteBehindJob job = jobs.get(id);
+            if (job == null) {
+                return RouteDispatcher.textResponse(404, "Trabajo no encontrado");
+            }
+            if (!"admin".equals(claims.get("rol", String.class))
+                    && (job.getSubject() == null || !job.getSubject().equals(claims.getSubject()))) {
+                return RouteDispatcher.textResponse(403, "Acceso denegado");
+            }
+            return RouteDispatcher.toStreaming(jsonResponse(200, job));
+        }));
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        if (journal == null) {
+            return;
+        }
+        retries.shutdownNow();
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        journal.close();
+    }
+
+    private void recover() throws IOException {
+        long now = System.currentTimeMillis();
+        for (WriteBehindJob job : journal.replay().values()) {
+            if (job.isFinished() && job.getFinishedAt() + properties.getResultTtl().toMillis() < now) {
+                continue;
+            }
+            if (job.isFinished()) {
+                job.setToken(null);
+            }
+            jobs.put(job.getId(), job);
+            if (!job.isFinished()) {
+                pending.offer(job);
+            }
+        }
+        journal.rewrite(jobs.values());
+        if (!pending.isEmpty()) {
+            log.info("Reanudando {} escrituras asíncronas pendientes", pending.size());
+        }
+    }
+
+    private void work() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        List<WriteBehindJob> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                WriteBehindJob first = pending.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                log.error("Error al procesar un lote de escrituras asíncronas", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Los trabajos del lote salen a la vez; sus nuevos estados se registran con una sola escritura a disco
+    private void process(List<WriteBehindJob> batch) throws IOException {
+        Flux.fromIterable(batch)
+                .flatMap(this::send, batch.size())
+                .then()
+                .block();
+        journal.append(batch);
+        for (WriteBehindJob job : batch) {
+            if (!job.isFinished()) {
+                long delay = backoff(job.getAttempts());
+                retries.schedule(() -> pending.offer(job), delay, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (journal.size() > properties.getCompactBytes()) {
+            compact();
+        }
+    }
+
+    private Mono<Void> send(WriteBehindJob job) {
+        Route route = routeTable.get(job.getRoute());
+        job.setAttempts(job.getAttempts() + 1);
+        if (route == null) {
+            finish(job, WriteBehindJob.Status.FAILED, 404, "La ruta " + job.getRoute() + " ya no existe");
+            return Mono.empty();
+        }
+        // El trabajo puede llevar horas en cola o venir de antes de un reinicio: no se envía un token caducado
+        if (job.getToken() != null && auth.validateToken(job.getToken()) == null) {
+            finish(job, WriteBehindJob.Status.FAILED, 401, "El token de la petición caducó antes de enviarla");
+            return Mono.empty();
+        }
+        WebClient.RequestBodySpec spec = route.getClient().method(route.getUpstreamMethod()).uri(URI.create(job.getUri()));
+        if (job.getToken() != null) {
+            spec.header(HttpHeaders.AUTHORIZATION, job.getToken());
+        }
+        WebClient.RequestHeadersSpec<?> request = job.getBody() != null
+                ? spec.contentType(MediaType.APPLICATION_JSON).bodyValue(job.getBody())
+                : spec;
+        Mono<ResponseEntity<String>> call = request.retrieve().toEntity(String.class);
+        if (route.getTimeout() != null) {
+            call = call.timeout(route.getTimeout());
+        }
+        return call
+                .doOnNext(response -> {
+                    finish(job, WriteBehindJob.Status.SUCCEEDED, response.getStatusCode().value(),
+                            response.getBody() != null ? response.getBody() : "");
+                    if (!route.getInvalidates().isEmpty()) {
+                        responseCache.invalidate(route.getInvalidates().toArray(new String[0]));
+                    }
+                })
+                .onErrorResume(e -> {
+                    failed(job, route, e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    // 5xx, 429, timeouts y fallos de conexión se reintentan; cualquier otro rechazo del microservicio es definitivo
+    private void failed(WriteBehindJob job, Route route, Throwable e) {
+        Integer status = null;
+        String message = route.getErrorMessage() + e.getMessage();
+        boolean retryable = true;
+        if (e instanceof WebClientResponseException response) {
+            status = response.getStatusCode().value();
+            message = response.getResponseBodyAsString(StandardCharsets.UTF_8);
+            retryable = response.getStatusCode().is5xxServerError() || status == 429;
+        }
+        if (retryable && job.getAttempts() < properties.getMaxAttempts()) {
+            job.setHttpStatus(status);
+            job.setResponse(message);
+            return;
+        }
+        finish(job, WriteBehindJob.Status.FAILED, status, message);
+    }
+
+    // Un trabajo terminado ya no necesita el token: no vuelve a escribirse en disco
+    private static void finish(WriteBehindJob job, WriteBehindJob.Status status, Integer httpStatus, String response) {
+        job.setToken(null);
+        job.setHttpStatus(httpStatus);
+        job.setResponse(response);
+        job.setFinishedAt(System.currentTimeMillis());
+        job.setStatus(status);
+    }
+
+    // Exponencial con jitter: entre la mitad y el total de initial * 2^(intentos-1), sin pasar de max-backoff
+    private long backoff(int attempts) {
+        long initial = properties.getInitialBackoff().toMillis();
+        long max = properties.getMaxBackoff().toMillis();
+        long delay = Math.min(max, initial << Math.min(attempts - 1, 30));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    void compact() throws IOException {
+        long expired = System.currentTimeMillis() - properties.getResultTtl().toMillis();
+        synchronized (compaction) {
+            jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt() < expired);
+            journal.rewrite(jobs.values());
+        }
+    }
+
+    WriteBehindJob job(String id) {
+        return jobs.get(id);
+    }
+
+    // El token y el cuerpo enviados no se devuelven
+    private ResponseEntity<byte[]> jsonResponse(int status, WriteBehindJob job) {
+        ObjectNode view = objectMapper.createObjectNode()
+                .put("id", job.getId())
+                .put("route", job.getRoute())
+                .put("status", job.getStatus().name())
+                .put("attempts", job.getAttempts())
+                .put("createdAt", job.getCreatedAt());
+        if (job.getHttpStatus() != null) {
+            view.put("httpStatus", job.getHttpStatus());
+        }
+        if (job.getResponse() != null) {
+            view.put("response", job.getResponse());
+        }
+        if (job.getFinishedAt() != null) {
+            view.put("finishedAt", job.getFinishedAt());
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(view);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+        if (status == 202) {
+            response.header("Preference-Applied", PREFER_ASYNC);
+        }
+        return response
+                .location(URI.create(JOBS_PATH + job.getId()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json);
+    }
+}
@@ -0,0 +1,182 @@
+package com.utd.ti.soa.esb_service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.utd.ti.soa.esb_service.support.StubUpstream;
+import com.utd.ti.soa.esb_service.support.TestTokens;
+
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+// Se ejecuta con: mvn test -Pload-test
+@Tag("load")
+class GatewayLoadTest {
+
+	static final Logger log = LoggerFactory.getLogger(GatewayLoadTest.class);
+
+	static final int CONCURRENT_REQUESTS = 600;
+	static final Duration UPSTREAM_LATENCY = Duration.ofMillis(1000);
+	// Tamaño por defecto del pool de Tomcat (server.tomcat.threads.max) con el que corría la versión bloqueante
+	static final int SERVLET_WORKER_THREADS = 200;
+	static final int ATTEMPTS = 3;
+
+	@Test
+	void reactiveGatewayOutperformsThreadPerRequestBaseline() throws Exception {
+		try (StubUpstream stub = StubUpstream.start()
+				.latency(UPSTREAM_LATENCY)
+				.respond("/products/allProducts", "[]")) {
+
+			long blockingMillis = Long.MAX_VALUE;
+			for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+				blockingMillis = Math.min(blockingMillis, runBlockingBaseline(stub));
+			}
+
+			ConfigurableApplicationContext gateway = startGateway(stub, "reactive");
+			try {
+				long reactiveMillis = runAgainstGateway(gatewayUrl(gateway), CONCURRENT_REQUESTS);
+
+				log.info("{} peticiones concurrentes, latencia upstream {} ms", CONCURRENT_REQUESTS,
+						UPSTREAM_LATENCY.toMillis());
+				log.info("  bloqueante ({} hilos): {} ms, {} req/s", SERVLET_WORKER_THREADS, blockingMillis,
+						Math.round(throughput(blockingMillis)));
+				log.info("  reactivo: {} ms, {} req/s", reactiveMillis, Math.round(throughput(reactiveMillis)));
+
+				assertTrue(reactiveMillis < blockingMillis);
+			} finally {
+				gateway.close();
+			}
+		}
+	}
+
+	// Reactivo y virtual no están acotados por hilos y deben superar al modelo bloqueante de 200 hilos;
+	// elástico, acotado por sus hilos igual que él, no debe quedar por detrás. Se toma el mejor de varios
+	// intentos para que el primer contexto de la JVM (JIT en frío) no decida el resultado
+	@Test
+	void executionModesUnderSlowUpstream() throws Exception {
+		try (StubUpstream stub = StubUpstream.start()
+				.latency(UPSTREAM_LATENCY)
+				.respond("/products/allProducts", "[]")) {
+			long blockingMillis = runBlockingBaseline(stub);
+			log.info("bloqueante ({} hilos) {} concurrentes: {} ms", SERVLET_WORKER_THREADS, CONCURRENT_REQUESTS,
+					blockingMillis);
+			Map<String, Long> millisByMode = new LinkedHashMap<>();
+			for (String mode : new String[] {"reactive", "virtual", "elastic"}) {
+				ConfigurableApplicationContext gateway = startGateway(stub, mode);
+				try {
+					String url = gatewayUrl(gateway);
+					// Calentamiento (JIT y conexiones) con la misma concurrencia que se mide
+					runAgainstGateway(url, CONCURRENT_REQUESTS);
+					for (int concurrency : new int[] {200, CONCURRENT_REQUESTS}) {
+						long millis = Long.MAX_VALUE;
+						for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+							millis = Math.min(millis, runAgainstGateway(url, concurrency));
+						}
+						log.info("modo {} {} concurrentes: {} ms, {} req/s", mode, concurrency, millis,
+								Math.round(concurrency * 1000.0 / Math.max(millis, 1)));
+						millisByMode.put(mode, millis);
+					}
+				} finally {
+					gateway.close();
+				}
+			}
+
+			assertTrue(millisByMode.get("reactive") < blockingMillis, "reactivo: " + millisByMode
+					+ ", bloqueante: " + blockingMillis + " ms");
+			assertTrue(millisByMode.get("virtual") < blockingMillis, "virtual: " + millisByMode
+					+ ", bloqueante: " + blockingMillis + " ms");
+			assertTrue(millisByMode.get("elastic") <= blockingMillis * 5 / 4, "elástico: " + millisByMode
+					+ ", bloqueante: " + blockingMillis + " ms");
+		}
+	}
+
+	private ConfigurableApplicationContext startGateway(StubUpstream stub, String mode) {
+		return new SpringApplicationBuilder(EsbServiceApplication.class)
+				.run("--server.port=0",
+						"--esb.upstream.products.base-url=" + stub.baseUrl(),
+						"--esb.upstream.products.max-connections=" + CONCURRENT_REQUESTS,
+						"--esb.upstream.products.bulkhead.enabled=false",
+						"--esb.execution.mode=" + mode,
+						"--esb.cache.enabled=false",
+						"--esb.rate-limit.enabled=false");
+	}
+
+	private static String gatewayUrl(ConfigurableApplicationContext gateway) {
+		return "http://localhost:" + gateway.getEnvironment().getProperty("local.server.port");
+	}
+
+	// Reproduce el modelo anterior: cada petición ocupa un hilo del pool mientras espera con .block()
+	private long runBlockingBaseline(StubUpstream stub) throws Exception {
+		WebClient client = loadClient(stub.baseUrl());
+		ExecutorService workers = Executors.newFixedThreadPool(SERVLET_WORKER_THREADS);
+		try {
+			long start = System.nanoTime();
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+				results.add(workers.submit(() -> client.get()
+						.uri("/products/allProducts")
+						.retrieve()
+						.bodyToMono(String.class)
+						.block()));
+			}
+			for (Future<String> result : results) {
+				result.get();
+			}
+			return (System.nanoTime() - start) / 1_000_000;
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+
+	private long runAgainstGateway(String gatewayUrl, int concurrency) {
+		WebClient client = loadClient(gatewayUrl);
+		String token = TestTokens.admin();
+		long start = System.nanoTime();
+		List<Integer> statuses = Flux.range(0, concurrency)
+				.flatMap(i -> client.get()
+						.uri("/app/esb/products")
+						.header(HttpHeaders.AUTHORIZATION, token)
+						.exchangeToMono(response -> response.releaseBody()
+								.thenReturn(response.statusCode().value())), concurrency)
+				.collectList()
+				.block();
+		long elapsed = (System.nanoTime() - start) / 1_000_000;
+		assertEquals(concurrency, statuses.stream().filter(status -> status == 200).count());
+		return elapsed;
+	}
+
+	static WebClient loadClient(String baseUrl) {
+		ConnectionProvider provider = ConnectionProvider.builder("load-test")
+				.maxConnections(CONCURRENT_REQUESTS)
+				.pendingAcquireMaxCount(-1)
+				.build();
+		return WebClient.builder()
+				.baseUrl(baseUrl)
+				.clientConnector(new ReactorClientHttpConnector(HttpClient.create(provider)))
+				.build();
+	}
+
+	static double throughput(long millis) {
+		return CONCURRENT_REQUESTS * 1000.0 / Math.max(millis, 1);
+	}
+}
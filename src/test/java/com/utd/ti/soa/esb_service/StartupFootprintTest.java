@@ -0,0 +1,124 @@
+package com.utd.ti.soa.esb_service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+// Se ejecuta con: mvn test -Pstartup (ver el perfil en pom.xml para medir el jar de -Pprod)
+// Arranca el ESB en un proceso nuevo varias veces y guarda la mediana del arranque y del RSS por versión
+@Tag("startup")
+class StartupFootprintTest {
+
+	static final Pattern STARTED = Pattern.compile(
+			"Started EsbServiceApplication in ([\\d.]+) seconds \\(process running for ([\\d.]+)\\)");
+	static final long TIMEOUT_SECONDS = 60;
+
+	static final int RUNS = Integer.getInteger("startup.runs", 5);
+	static final String JAR = System.getProperty("startup.jar", "");
+	static final String JVM_ARGS = System.getProperty("startup.jvm-args", "");
+
+	record Run(double startupSeconds, double processSeconds, long rssKb) {
+	}
+
+	@Test
+	void startupTimeAndResidentMemory() throws Exception {
+		List<Run> runs = new ArrayList<>();
+		for (int i = 0; i < RUNS; i++) {
+			runs.add(startOnce());
+		}
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("version", System.getProperty("project.version", "desconocida"));
+		result.put("build", JAR.isEmpty() ? "classpath" : JAR);
+		result.put("jvmArgs", JVM_ARGS);
+		result.put("javaVersion", System.getProperty("java.version"));
+		result.put("runs", RUNS);
+		result.put("startupSeconds", median(runs.stream().mapToDouble(Run::startupSeconds).toArray()));
+		result.put("processSeconds", median(runs.stream().mapToDouble(Run::processSeconds).toArray()));
+		result.put("rssMb", median(runs.stream().mapToDouble(run -> run.rssKb() / 1024.0).toArray()));
+
+		String json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(result);
+		System.out.println(json);
+		String output = System.getProperty("startup.output");
+		if (output != null) {
+			Files.writeString(Path.of(output), json);
+		}
+	}
+
+	Run startOnce() throws Exception {
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		if (!JVM_ARGS.isBlank()) {
+			command.addAll(Arrays.asList(JVM_ARGS.trim().split("\\s+")));
+		}
+		ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true);
+		if (JAR.isEmpty()) {
+			command.addAll(List.of("-cp", System.getProperty("java.class.path"), EsbServiceApplication.class.getName()));
+		} else {
+			// Desde el directorio del jar, como en el despliegue: el archivo CDS guarda las rutas relativas del classpath
+			Path jar = Path.of(JAR).toAbsolutePath();
+			builder.directory(jar.getParent().toFile());
+			command.addAll(List.of("-jar", jar.getFileName().toString()));
+		}
+		command.addAll(List.of("--server.port=0", "--spring.devtools.restart.enabled=false"));
+
+		Process process = builder.start();
+		try (BufferedReader output = new BufferedReader(
+				new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+			String line;
+			while ((line = output.readLine()) != null && System.nanoTime() < deadline) {
+				Matcher matcher = STARTED.matcher(line);
+				if (matcher.find()) {
+					// El RSS se toma ya arrancado, con el calentamiento hecho y antes de recibir tráfico
+					return new Run(Double.parseDouble(matcher.group(1)), Double.parseDouble(matcher.group(2)),
+							rssKb(process.pid()));
+				}
+			}
+			throw new AssertionError("El ESB no arrancó en " + TIMEOUT_SECONDS + " s");
+		} finally {
+			process.destroy();
+			assertTrue(process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		}
+	}
+
+	// VmRSS de /proc (Linux, como en Railway); -1 donde no existe
+	static long rssKb(long pid) throws IOException {
+		Path status = Path.of("/proc", Long.toString(pid), "status");
+		if (!Files.exists(status)) {
+			return -1;
+		}
+		for (String line : Files.readAllLines(status)) {
+			if (line.startsWith("VmRSS:")) {
+				return Long.parseLong(line.replaceAll("\\D", ""));
+			}
+		}
+		return -1;
+	}
+
+	static double median(double[] values) {
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int middle = sorted.length / 2;
+		return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+	}
+}
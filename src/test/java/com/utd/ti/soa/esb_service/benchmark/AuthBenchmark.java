@@ -0,0 +1,86 @@
+package com.utd.ti.soa.esb_service.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.utd.ti.soa.esb_service.support.TestTokens;
+import com.utd.ti.soa.esb_service.utils.Auth;
+
+import io.jsonwebtoken.Claims;
+
+// Coste de validar un token por rol: con la caché de tokens verificados, sin ella, y con tokens rechazados
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthBenchmark {
+
+	@Param({"admin", "customer", "seller"})
+	public String role;
+
+	Auth cachedAuth;
+	Auth uncachedAuth;
+	String validToken;
+	String wrongKeyToken;
+	String expiredToken;
+
+	@Setup
+	public void setup() {
+		cachedAuth = new Auth();
+		uncachedAuth = new Auth(0, 0);
+		String key = keyFor(role);
+		validToken = TestTokens.token(key, role, TimeUnit.HOURS.toMillis(1));
+		wrongKeyToken = TestTokens.token(key.equals(TestTokens.ADMIN_KEY) ? TestTokens.SELLER_KEY : TestTokens.ADMIN_KEY,
+				role, TimeUnit.HOURS.toMillis(1));
+		expiredToken = TestTokens.token(key, role, -TimeUnit.MINUTES.toMillis(1));
+	}
+
+	private static String keyFor(String role) {
+		switch (role) {
+			case "admin":
+				return TestTokens.ADMIN_KEY;
+			case "seller":
+				return TestTokens.SELLER_KEY;
+			default:
+				return TestTokens.CUSTOMER_KEY;
+		}
+	}
+
+	@Benchmark
+	public Claims validateCached() {
+		return cachedAuth.validateToken(validToken);
+	}
+
+	@Benchmark
+	public Claims validateUncached() {
+		return uncachedAuth.validateToken(validToken);
+	}
+
+	@Benchmark
+	public boolean hasRoleAdminOrSeller() {
+		return cachedAuth.hasRole(validToken, "admin", "seller");
+	}
+
+	@Benchmark
+	public Claims rejectWrongKey() {
+		return cachedAuth.validateToken(wrongKeyToken);
+	}
+
+	@Benchmark
+	public Claims rejectExpired() {
+		return cachedAuth.validateToken(expiredToken);
+	}
+}
@@ -0,0 +1,109 @@
+package com.utd.ti.soa.esb_service.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.decoder.Decoder;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+// Tamaño y CPU de los listados de Client/Product en cada formato que negocia el ESB.
+// El tamaño de cada carga se imprime al preparar el benchmark; gzip y br usan los niveles por defecto de Netty (6 y 4)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+	@Param({"Client", "Product"})
+	public String model;
+
+	@Param({"100", "1000"})
+	public int size;
+
+	@Param({"json", "json-gzip", "json-br", "smile", "cbor"})
+	public String format;
+
+	ObjectMapper mapper;
+	JavaType listType;
+	List<Object> values;
+	byte[] encoded;
+	Encoder.Parameters brotli;
+
+	@Setup
+	public void setup() throws Exception {
+		ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+		mapper = format.equals("smile") ? json.copyWith(new SmileFactory())
+				: format.equals("cbor") ? json.copyWith(new CBORFactory())
+				: json;
+		Class<?> type = Class.forName("com.utd.ti.soa.esb_service.model." + model);
+		listType = mapper.getTypeFactory().constructCollectionType(List.class, type);
+		values = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			values.add(model.equals("Client") ? JsonBenchmark.client(i) : JsonBenchmark.product(i));
+		}
+		if (format.equals("json-br")) {
+			Brotli4jLoader.ensureAvailability();
+			brotli = new Encoder.Parameters().setQuality(4);
+		}
+		encoded = serialize();
+		System.out.printf("%n%s x %d en %s: %d bytes (JSON sin comprimir: %d bytes)%n",
+				model, size, format, encoded.length, json.writeValueAsBytes(values).length);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws Exception {
+		byte[] body = mapper.writeValueAsBytes(values);
+		switch (format) {
+			case "json-gzip":
+				ByteArrayOutputStream output = new ByteArrayOutputStream(body.length / 4);
+				try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+					gzip.write(body);
+				}
+				return output.toByteArray();
+			case "json-br":
+				return Encoder.compress(body, brotli);
+			default:
+				return body;
+		}
+	}
+
+	// Lo que paga el consumidor: descomprimir (si aplica) y leer la lista
+	@Benchmark
+	public List<?> deserialize() throws Exception {
+		switch (format) {
+			case "json-gzip":
+				try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+					return mapper.readValue(gzip.readAllBytes(), listType);
+				}
+			case "json-br":
+				return mapper.readValue(Decoder.decompress(encoded).getDecompressedData(), listType);
+			default:
+				return mapper.readValue(encoded, listType);
+		}
+	}
+}
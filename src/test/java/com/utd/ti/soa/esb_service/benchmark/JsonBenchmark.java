@@ -0,0 +1,119 @@
+package com.utd.ti.soa.esb_service.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utd.ti.soa.esb_service.model.Client;
+import com.utd.ti.soa.esb_service.model.CreateOrderRequest;
+import com.utd.ti.soa.esb_service.model.Product;
+import com.utd.ti.soa.esb_service.model.User;
+
+// (De)serialización Jackson de listas de los modelos del ESB con el mismo ObjectMapper que configura Spring
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+	@Param({"Client", "Product", "User", "CreateOrderRequest"})
+	public String model;
+
+	@Param({"10", "100", "1000"})
+	public int size;
+
+	ObjectMapper objectMapper;
+	JavaType listType;
+	List<?> values;
+	byte[] json;
+
+	@Setup
+	public void setup() throws Exception {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		Class<?> type = Class.forName("com.utd.ti.soa.esb_service.model." + model);
+		listType = objectMapper.getTypeFactory().constructCollectionType(List.class, type);
+		values = list(size, factory(model));
+		json = objectMapper.writeValueAsBytes(values);
+	}
+
+	private static IntFunction<Object> factory(String model) {
+		switch (model) {
+			case "Client":
+				return JsonBenchmark::client;
+			case "Product":
+				return JsonBenchmark::product;
+			case "User":
+				return JsonBenchmark::user;
+			default:
+				return i -> new CreateOrderRequest(100 + i * 0.5, "mxn", i);
+		}
+	}
+
+	private static List<Object> list(int size, IntFunction<Object> factory) {
+		List<Object> list = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			list.add(factory.apply(i));
+		}
+		return list;
+	}
+
+	static Client client(int i) {
+		Client client = new Client();
+		client.setName("Cliente " + i);
+		client.setLastName("Apellido " + i);
+		client.setEmail("cliente" + i + "@correo.com");
+		client.setPhone("618" + (1000000 + i));
+		client.setBirthDate("1990-01-" + (10 + i % 18));
+		client.setAddress("Calle " + i + ", Durango, Dgo.");
+		client.setStatus(true);
+		return client;
+	}
+
+	static Product product(int i) {
+		Product product = new Product();
+		product.setName("Producto " + i);
+		product.setDescription("Descripción del producto " + i + " con un texto de longitud habitual");
+		product.setCategory("categoria-" + i % 12);
+		product.setPrice(99.9 + i);
+		product.setStock(i % 500);
+		product.setBrand("Marca " + i % 40);
+		product.setStatus(true);
+		return product;
+	}
+
+	static User user(int i) {
+		User user = new User();
+		user.setUsername("usuario" + i);
+		user.setPhone("618" + (2000000 + i));
+		user.setPassword("$2b$10$" + Integer.toHexString(i * 7919) + "abcdefghijklmnopqrstuvwxyz0123456789");
+		return user;
+	}
+
+	@Benchmark
+	public byte[] serialize() throws Exception {
+		return objectMapper.writeValueAsBytes(values);
+	}
+
+	@Benchmark
+	public List<?> deserialize() throws Exception {
+		return objectMapper.readValue(json, listType);
+	}
+}
@@ -0,0 +1,123 @@
+package com.utd.ti.soa.esb_service.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.utd.ti.soa.esb_service.EsbServiceApplication;
+import com.utd.ti.soa.esb_service.model.Product;
+import com.utd.ti.soa.esb_service.support.StubUpstream;
+import com.utd.ti.soa.esb_service.support.TestTokens;
+
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+// Ida y vuelta completa cliente -> ESB -> upstream simulado en el mismo proceso; "direct" mide el upstream sin ESB
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProxyRoundTripBenchmark {
+
+	private static final int PRODUCTS = 100;
+
+	@Param({"reactive", "virtual"})
+	public String mode;
+
+	StubUpstream stub;
+	ConfigurableApplicationContext gateway;
+	ConnectionProvider connections;
+	WebClient gatewayClient;
+	WebClient directClient;
+	String adminToken;
+
+	@Setup
+	public void setup() throws Exception {
+		List<Product> products = new ArrayList<>(PRODUCTS);
+		for (int i = 0; i < PRODUCTS; i++) {
+			products.add(JsonBenchmark.product(i));
+		}
+		stub = StubUpstream.start()
+				.respond("/products/allProducts", Jackson2ObjectMapperBuilder.json().build().writeValueAsString(products))
+				.respond("/clients/getClientid/7", "{\"name\":\"Ana\",\"email\":\"ana@correo.com\"}");
+
+		// Sin caché de respuestas para que cada iteración llegue al upstream
+		gateway = new SpringApplicationBuilder(EsbServiceApplication.class)
+				.run("--server.port=0",
+						"--spring.main.banner-mode=off",
+						"--logging.level.root=warn",
+						"--esb.upstream.products.base-url=" + stub.baseUrl(),
+						"--esb.upstream.clients.base-url=" + stub.baseUrl(),
+						"--esb.execution.mode=" + mode,
+						"--esb.cache.enabled=false",
+						"--esb.rate-limit.enabled=false");
+		int port = ((WebServerApplicationContext) gateway).getWebServer().getPort();
+
+		connections = ConnectionProvider.create("jmh-client", 16);
+		HttpClient httpClient = HttpClient.create(connections);
+		gatewayClient = WebClient.builder()
+				.baseUrl("http://localhost:" + port + "/app/esb")
+				.clientConnector(new ReactorClientHttpConnector(httpClient))
+				.build();
+		directClient = WebClient.builder()
+				.baseUrl(stub.baseUrl())
+				.clientConnector(new ReactorClientHttpConnector(httpClient))
+				.build();
+		adminToken = TestTokens.admin();
+	}
+
+	@TearDown
+	public void tearDown() {
+		connections.dispose();
+		gateway.close();
+		stub.close();
+	}
+
+	@Benchmark
+	public byte[] listProducts() {
+		return gatewayClient.get().uri("/products")
+				.header(HttpHeaders.AUTHORIZATION, adminToken)
+				.retrieve()
+				.bodyToMono(byte[].class)
+				.block();
+	}
+
+	@Benchmark
+	public byte[] getClient() {
+		return gatewayClient.get().uri("/clients/7")
+				.header(HttpHeaders.AUTHORIZATION, adminToken)
+				.retrieve()
+				.bodyToMono(byte[].class)
+				.block();
+	}
+
+	@Benchmark
+	public byte[] listProductsDirect() {
+		return directClient.get().uri("/products/allProducts")
+				.retrieve()
+				.bodyToMono(byte[].class)
+				.block();
+	}
+}
@@ -0,0 +1,70 @@
+package com.utd.ti.soa.esb_service.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.utd.ti.soa.esb_service.config.RateLimitProperties;
+import com.utd.ti.soa.esb_service.resilience.RateLimiter;
+
+// Coste del limitador por petición con todos los núcleos a la vez: cada hilo con su cliente (caso normal),
+// todos contra el mismo cliente (máxima contención en el CAS) y peticiones ya rechazadas
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class RateLimiterBenchmark {
+
+	RateLimiter admitting;
+	RateLimiter rejecting;
+
+	@Setup
+	public void setup() {
+		admitting = new RateLimiter(properties(Integer.MAX_VALUE, 1e12));
+		rejecting = new RateLimiter(properties(1, 1e-6));
+	}
+
+	static RateLimitProperties properties(int capacity, double perSecond) {
+		RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+		limit.setCapacity(capacity);
+		limit.setPerSecond(perSecond);
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setDefaultLimit(limit);
+		return properties;
+	}
+
+	@State(Scope.Thread)
+	public static class Client {
+		static final AtomicInteger IDS = new AtomicInteger();
+		final String id = "user:" + IDS.incrementAndGet() + ":customer";
+	}
+
+	@Benchmark
+	public long perClient(Client client) {
+		return admitting.tryAcquire("list-products", "customer", client.id);
+	}
+
+	@Benchmark
+	public long sharedClient() {
+		return admitting.tryAcquire("list-products", "customer", "user:1:customer");
+	}
+
+	@Benchmark
+	public long rejected(Client client) {
+		return rejecting.tryAcquire("list-products", "customer", client.id);
+	}
+}
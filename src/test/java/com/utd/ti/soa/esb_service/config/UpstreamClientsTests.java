@@ -0,0 +1,70 @@
+package com.utd.ti.soa.esb_service.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.utd.ti.soa.esb_service.support.StubUpstream;
+import com.utd.ti.soa.esb_service.support.TestTokens;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class UpstreamClientsTests {
+
+	static final StubUpstream STUB = StubUpstream.start().respond("/clients/getClientid/7", "{\"name\":\"Ana\"}");
+
+	@DynamicPropertySource
+	static void upstreams(DynamicPropertyRegistry registry) {
+		registry.add("esb.upstream.clients.base-url", STUB::baseUrl);
+		registry.add("esb.upstream.products.base-url", STUB::baseUrl);
+		// Sin nada escuchando: el arranque previo la ignora
+		registry.add("esb.upstream.payments.base-url", () -> "http://localhost:1");
+	}
+
+	@AfterAll
+	static void stopStub() {
+		STUB.close();
+	}
+
+	@Autowired
+	WebTestClient webTestClient;
+
+	@Autowired
+	UpstreamClients upstreamClients;
+
+	@Test
+	void eachUpstreamHasItsOwnPoolWithMetrics() {
+		webTestClient.get().uri("/app/esb/clients/7")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.admin())
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).isEqualTo("{\"name\":\"Ana\"}");
+
+		webTestClient.get()
+				.uri("/actuator/metrics/reactor.netty.connection.provider.idle.connections?tag=name:esb-clients")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).value(body -> assertThat(body)
+						.contains(STUB.baseUrl().substring("http://".length())));
+	}
+
+	// users apunta a Railway y payments a un puerto cerrado: cuentan solo los que responden a tiempo
+	@Test
+	void preconnectOpensOneConnectionPerReachableUpstream() {
+		int before = STUB.requestCount();
+
+		Long reached = upstreamClients.preconnect(Duration.ofMillis(500)).block();
+
+		assertEquals(2, STUB.requestCount() - before);
+		assertEquals(2, reached);
+	}
+}
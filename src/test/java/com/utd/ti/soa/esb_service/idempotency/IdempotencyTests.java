@@ -0,0 +1,129 @@
+package com.utd.ti.soa.esb_service.idempotency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.utd.ti.soa.esb_service.routing.RouteDispatcher;
+import com.utd.ti.soa.esb_service.support.StubUpstream;
+import com.utd.ti.soa.esb_service.support.TestTokens;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class IdempotencyTests {
+
+	static final StubUpstream STUB = StubUpstream.start()
+			.latency(Duration.ofMillis(300))
+			.respond("/api/payments/create-order", "{\"orderId\":\"o-1\"}");
+
+	@DynamicPropertySource
+	static void upstreams(DynamicPropertyRegistry registry) {
+		registry.add("esb.upstream.payments.base-url", STUB::baseUrl);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		STUB.close();
+	}
+
+	@LocalServerPort
+	int port;
+
+	final String token = TestTokens.customer();
+
+	Mono<ResponseEntity<String>> createOrder(String key, double amount) {
+		return WebClient.create("http://localhost:" + port).post().uri("/app/esb/payments/create-order")
+				.header(HttpHeaders.AUTHORIZATION, token)
+				.header(RouteDispatcher.IDEMPOTENCY_KEY, key)
+				.bodyValue(Map.of("amount", amount, "currency", "mxn", "userId", 7))
+				.exchangeToMono(response -> response.toEntity(String.class));
+	}
+
+	@Test
+	void concurrentDuplicatesShareOneUpstreamCallAndReplaysSkipIt() {
+		int before = STUB.requestCount();
+
+		List<ResponseEntity<String>> responses = Flux.range(0, 3)
+				.flatMap(i -> createOrder("orden-1", 100))
+				.collectList()
+				.block();
+
+		assertEquals(before + 1, STUB.requestCount());
+		long replayed = responses.stream()
+				.filter(response -> response.getHeaders().containsKey(RouteDispatcher.IDEMPOTENT_REPLAYED))
+				.count();
+		assertEquals(2, replayed);
+		responses.forEach(response -> {
+			assertEquals(200, response.getStatusCode().value());
+			assertEquals("{\"orderId\":\"o-1\"}", response.getBody());
+		});
+
+		ResponseEntity<String> replay = createOrder("orden-1", 100).block();
+		assertEquals("true", replay.getHeaders().getFirst(RouteDispatcher.IDEMPOTENT_REPLAYED));
+		assertEquals("{\"orderId\":\"o-1\"}", replay.getBody());
+		assertEquals(before + 1, STUB.requestCount());
+	}
+
+	@Test
+	void aKeyCannotBeReusedForAnotherOrder() {
+		assertEquals(200, createOrder("orden-2", 100).block().getStatusCode().value());
+
+		ResponseEntity<String> reused = createOrder("orden-2", 250).block();
+
+		assertEquals(422, reused.getStatusCode().value());
+		assertEquals("La clave de idempotencia ya se usó con otra petición", reused.getBody());
+	}
+
+	// Tras un 5xx la orden pudo crearse: repetir la clave no vuelve a llamar a payments
+	@Test
+	void aFailedOrderIsNotRetriedWithTheSameKey() {
+		STUB.status(500);
+		try {
+			assertEquals(500, createOrder("orden-3", 100).block().getStatusCode().value());
+		} finally {
+			STUB.status(200);
+		}
+		int before = STUB.requestCount();
+
+		ResponseEntity<String> retry = createOrder("orden-3", 100).block();
+
+		assertEquals(409, retry.getStatusCode().value());
+		assertEquals(before, STUB.requestCount());
+		assertEquals(200, createOrder("orden-4", 100).block().getStatusCode().value());
+	}
+
+	// Un 4xx del microservicio es definitivo: el reintento recibe el mismo rechazo sin volver a llamar a payments
+	@Test
+	void aRejectedOrderIsReplayedWithTheSameKey() {
+		STUB.status(400);
+		ResponseEntity<String> rejected;
+		try {
+			rejected = createOrder("orden-5", 100).block();
+		} finally {
+			STUB.status(200);
+		}
+		int before = STUB.requestCount();
+
+		ResponseEntity<String> retry = createOrder("orden-5", 100).block();
+
+		assertEquals(400, rejected.getStatusCode().value());
+		assertEquals(400, retry.getStatusCode().value());
+		assertEquals("true", retry.getHeaders().getFirst(RouteDispatcher.IDEMPOTENT_REPLAYED));
+		assertEquals(rejected.getBody(), retry.getBody());
+		assertEquals(before, STUB.requestCount());
+	}
+}
@@ -0,0 +1,81 @@
+package com.utd.ti.soa.esb_service.idempotency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import com.utd.ti.soa.esb_service.config.IdempotencyProperties;
+import com.utd.ti.soa.esb_service.resilience.UpstreamUnavailableException;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class InMemoryIdempotencyStoreTests {
+
+	final AtomicInteger calls = new AtomicInteger();
+
+	InMemoryIdempotencyStore store(int maxEntries) {
+		IdempotencyProperties properties = new IdempotencyProperties();
+		properties.setMaxEntries(maxEntries);
+		return new InMemoryIdempotencyStore(properties);
+	}
+
+	Mono<ResponseEntity<byte[]>> respond(int status) {
+		return Mono.fromSupplier(() -> {
+			calls.incrementAndGet();
+			return ResponseEntity.status(status).body("{}".getBytes(StandardCharsets.UTF_8));
+		});
+	}
+
+	@Test
+	void aTimeoutIsAnUnknownOutcomeAndIsNotExecutedAgain() {
+		InMemoryIdempotencyStore store = store(10);
+
+		assertEquals(504, store.execute("k", "f", () -> respond(504)).block().getResponse().getStatusCode().value());
+
+		assertThrows(IdempotencyOutcomeUnknownException.class, () -> store.execute("k", "f", () -> respond(200)).block());
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void aCallTheGatewayNeverSentFreesTheKey() {
+		InMemoryIdempotencyStore store = store(10);
+
+		assertThrows(UpstreamUnavailableException.class, () -> store.execute("k", "f",
+				() -> Mono.error(new UpstreamUnavailableException("payments", "circuito abierto", null))).block());
+
+		assertEquals(200, store.execute("k", "f", () -> respond(200)).block().getResponse().getStatusCode().value());
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void keysInFlightAreNeverEvictedAndAFullStoreRejectsNewKeys() {
+		InMemoryIdempotencyStore store = store(2);
+		Sinks.One<ResponseEntity<byte[]>> first = Sinks.one();
+		Sinks.One<ResponseEntity<byte[]>> second = Sinks.one();
+		store.execute("a", "f", first::asMono).subscribe();
+		store.execute("b", "f", second::asMono).subscribe();
+
+		assertThrows(IdempotencyStoreFullException.class, () -> store.execute("c", "f", () -> respond(200)).block());
+		assertEquals(2, store.size());
+
+		// Un duplicado de "a" sigue esperando la llamada original, no lanza otra
+		Mono<IdempotentResponse> duplicate = store.execute("a", "f", () -> respond(200));
+		first.tryEmitValue(ResponseEntity.ok("{\"id\":1}".getBytes(StandardCharsets.UTF_8)));
+		IdempotentResponse replayed = duplicate.block();
+		assertTrue(replayed.isReplayed());
+		assertEquals("{\"id\":1}", new String(replayed.getResponse().getBody(), StandardCharsets.UTF_8));
+		assertEquals(0, calls.get());
+
+		// "a" ya terminó: deja sitio a la clave nueva; "b" sigue en curso y se conserva
+		assertEquals(200, store.execute("c", "f", () -> respond(200)).block().getResponse().getStatusCode().value());
+		assertEquals(2, store.size());
+		second.tryEmitValue(ResponseEntity.ok(new byte[0]));
+	}
+}
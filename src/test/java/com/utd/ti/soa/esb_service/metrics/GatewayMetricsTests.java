@@ -0,0 +1,78 @@
+package com.utd.ti.soa.esb_service.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.utd.ti.soa.esb_service.support.StubUpstream;
+import com.utd.ti.soa.esb_service.support.TestTokens;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+class GatewayMetricsTests {
+
+	static final StubUpstream STUB = StubUpstream.start().respond("/users/getUsers", "[]");
+
+	@DynamicPropertySource
+	static void upstreams(DynamicPropertyRegistry registry) {
+		registry.add("esb.upstream.users.base-url", STUB::baseUrl);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		STUB.close();
+	}
+
+	@Autowired
+	WebTestClient webTestClient;
+
+	@Test
+	void routeUpstreamAndAuthMetricsAreScraped() {
+		// El cuerpo lento cuenta como tiempo del microservicio, no como overhead del gateway
+		STUB.slowBodyNext(1, Duration.ofMillis(400));
+		webTestClient.get().uri("/app/esb/users")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.admin())
+				.exchange()
+				.expectStatus().isOk();
+		webTestClient.get().uri("/app/esb/users")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.customer())
+				.exchange()
+				.expectStatus().isForbidden();
+
+		String scrape = webTestClient.get().uri("/actuator/prometheus")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class).returnResult().getResponseBody();
+
+		assertThat(scrape)
+				.contains("esb_route_requests_seconds_count{method=\"GET\",route=\"list-users\",status=\"200\"} 1")
+				.contains("esb_route_requests_seconds_count{method=\"GET\",route=\"list-users\",status=\"403\"} 1")
+				.contains("esb_route_requests_seconds_bucket{method=\"GET\",route=\"list-users\",status=\"200\"")
+				.contains("esb_route_upstream_seconds_count{route=\"list-users\"} 1")
+				.contains("esb_route_overhead_seconds_count{route=\"list-users\"} 2")
+				.contains("esb_route_inflight{route=\"list-users\"} 0")
+				.contains("esb_upstream_requests_seconds_count{host=\"localhost\",service=\"users\",status=\"200\"} 1")
+				.contains("esb_upstream_inflight{host=\"localhost\",service=\"users\"} 0")
+				.contains("esb_auth_verification_seconds_count{result=\"valid\"} 2");
+		assertThat(sample(scrape, "esb_route_upstream_seconds_sum{route=\"list-users\"}")).isGreaterThanOrEqualTo(0.4);
+		assertThat(sample(scrape, "esb_route_overhead_seconds_sum{route=\"list-users\"}")).isLessThan(0.4);
+	}
+
+	static double sample(String scrape, String series) {
+		return scrape.lines()
+				.filter(line -> line.startsWith(series + " "))
+				.mapToDouble(line -> Double.parseDouble(line.substring(series.length() + 1)))
+				.findFirst()
+				.orElseThrow();
+	}
+}
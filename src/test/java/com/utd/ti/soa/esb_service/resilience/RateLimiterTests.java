@@ -0,0 +1,112 @@
+package com.utd.ti.soa.esb_service.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.utd.ti.soa.esb_service.config.RateLimitProperties;
+
+class RateLimiterTests {
+
+	static RateLimitProperties.Limit limit(int capacity, double perSecond) {
+		RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+		limit.setCapacity(capacity);
+		limit.setPerSecond(perSecond);
+		return limit;
+	}
+
+	@Test
+	void eachClientHasItsOwnBucketAndRolesTheirOwnLimit() {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setDefaultLimit(limit(1, 0.001));
+		properties.getRoutes().put("list-products", Map.of("admin", limit(3, 0.001), "*", limit(2, 0.001)));
+		RateLimiter limiter = new RateLimiter(properties);
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, limiter.tryAcquire("list-products", "admin", "user:1:admin"));
+		}
+		assertTrue(limiter.tryAcquire("list-products", "admin", "user:1:admin") > 0);
+
+		assertEquals(0, limiter.tryAcquire("list-products", "seller", "user:2:seller"));
+		assertEquals(0, limiter.tryAcquire("list-products", "seller", "user:2:seller"));
+		assertTrue(limiter.tryAcquire("list-products", "seller", "user:2:seller") > 0);
+
+		assertEquals(0, limiter.tryAcquire("login", null, "ip:10.0.0.1"));
+		assertTrue(limiter.tryAcquire("login", null, "ip:10.0.0.1") > 0);
+		assertEquals(0, limiter.tryAcquire("login", null, "ip:10.0.0.2"));
+	}
+
+	@Test
+	void concurrentCallersNeverGetMoreThanTheCapacity() throws Exception {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setDefaultLimit(limit(500, 0.001));
+		RateLimiter limiter = new RateLimiter(properties);
+		AtomicInteger admitted = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+
+		for (int t = 0; t < 8; t++) {
+			pool.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < 1000; i++) {
+					if (limiter.tryAcquire("list-products", "customer", "user:1:customer") == 0) {
+						admitted.incrementAndGet();
+					}
+				}
+			});
+		}
+		start.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertEquals(500, admitted.get());
+	}
+
+	@Test
+	void overTheKeyLimitNewClientsShareOneBucketUntilTheSweep() {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setDefaultLimit(limit(1, 0.001));
+		properties.setMaxKeys(10);
+		RateLimiter limiter = new RateLimiter(properties);
+
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, limiter.tryAcquire("login", null, "ip:10.0.0." + i));
+		}
+		assertEquals(0, limiter.tryAcquire("login", null, "ip:10.0.1.1"));
+		assertTrue(limiter.tryAcquire("login", null, "ip:10.0.1.2") > 0);
+		assertTrue(limiter.tryAcquire("login", null, "ip:10.0.1.3") > 0);
+		assertEquals(11, limiter.size());
+		limiter.destroy();
+	}
+
+	@Test
+	void theSweepDropsIdleBuckets() {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setDefaultLimit(limit(1, 1000000));
+		properties.setMaxKeys(10);
+		RateLimiter limiter = new RateLimiter(properties);
+
+		for (int i = 0; i < 100; i++) {
+			limiter.tryAcquire("login", null, "ip:10.0.0." + i);
+		}
+		assertTrue(limiter.size() <= 11, "cubetas: " + limiter.size());
+
+		limiter.sweep();
+
+		assertEquals(0, limiter.size());
+		assertEquals(0, limiter.tryAcquire("login", null, "ip:10.0.0.1"));
+		limiter.destroy();
+	}
+}
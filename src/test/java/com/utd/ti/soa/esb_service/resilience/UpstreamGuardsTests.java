@@ -0,0 +1,134 @@
+package com.utd.ti.soa.esb_service.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.utd.ti.soa.esb_service.support.StubUpstream;
+import com.utd.ti.soa.esb_service.support.TestTokens;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class UpstreamGuardsTests {
+
+	static final StubUpstream PAYMENTS = StubUpstream.start().status(500);
+	static final StubUpstream CLIENTS = StubUpstream.start().latency(Duration.ofMillis(500));
+	static final StubUpstream USERS = StubUpstream.start().respond("/users/getUsers", "[]");
+
+	@DynamicPropertySource
+	static void upstreams(DynamicPropertyRegistry registry) {
+		registry.add("esb.upstream.payments.base-url", PAYMENTS::baseUrl);
+		registry.add("esb.upstream.payments.circuit-breaker.sliding-window-size", () -> 4);
+		registry.add("esb.upstream.payments.circuit-breaker.minimum-number-of-calls", () -> 4);
+		registry.add("esb.upstream.payments.circuit-breaker.wait-duration-in-open-state", () -> "1m");
+		registry.add("esb.upstream.clients.base-url", CLIENTS::baseUrl);
+		registry.add("esb.upstream.clients.bulkhead.max-concurrent-calls", () -> 2);
+		registry.add("esb.upstream.users.base-url", USERS::baseUrl);
+		registry.add("esb.upstream.users.bulkhead.max-concurrent-calls", () -> 1);
+	}
+
+	@AfterAll
+	static void stopStubs() {
+		PAYMENTS.close();
+		CLIENTS.close();
+		USERS.close();
+	}
+
+	@LocalServerPort
+	int port;
+
+	@Autowired
+	WebTestClient webTestClient;
+
+	@Autowired
+	UpstreamGuards guards;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	int createOrder() {
+		return webTestClient.post().uri("/app/esb/payments/create-order")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.customer())
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"amount\":10,\"currency\":\"mxn\",\"userId\":1}")
+				.exchange()
+				.returnResult(String.class)
+				.getStatus()
+				.value();
+	}
+
+	@Test
+	void failingUpstreamOpensItsCircuitWithoutAffectingOthers() {
+		for (int i = 0; i < 4; i++) {
+			assertEquals(500, createOrder());
+		}
+		assertEquals(CircuitBreaker.State.OPEN, guards.state("payments"));
+
+		assertEquals(503, createOrder());
+		assertEquals(4, PAYMENTS.requestCount());
+
+		webTestClient.get().uri("/app/esb/users")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.admin())
+				.exchange()
+				.expectStatus().isOk();
+		assertThat(meterRegistry.counter("esb.upstream.rejections", "service", "payments", "reason", "circuit-breaker")
+				.count()).isEqualTo(1);
+	}
+
+	@Test
+	void bulkheadRejectsCallsBeyondItsConcurrencyLimit() {
+		WebClient client = WebClient.create("http://localhost:" + port);
+		String token = TestTokens.admin();
+
+		List<Integer> statuses = Flux.range(0, 5)
+				.flatMap(i -> client.get().uri("/app/esb/clients/" + i)
+						.header(HttpHeaders.AUTHORIZATION, token)
+						.exchangeToMono(response -> response.releaseBody()
+								.thenReturn(response.statusCode().value())), 5)
+				.collectList()
+				.block();
+
+		assertThat(statuses).containsExactlyInAnyOrder(200, 200, 503, 503, 503);
+		assertEquals(2, CLIENTS.requestCount());
+	}
+
+	@Test
+	void bulkheadHoldsThePermitWhileTheBodyIsStillArriving() {
+		USERS.slowBodyNext(1, Duration.ofMillis(800));
+		WebClient client = WebClient.create("http://localhost:" + port);
+		String token = TestTokens.admin();
+
+		// La segunda llamada sale cuando la primera ya tiene cabeceras pero no cuerpo
+		Mono<Integer> slow = listUsers(client, token);
+		Mono<Integer> second = Mono.delay(Duration.ofMillis(300)).then(listUsers(client, token));
+		List<Integer> statuses = Mono.zip(slow, second, List::of).block();
+
+		assertEquals(List.of(200, 503), statuses);
+		assertEquals(200, listUsers(client, token).block());
+	}
+
+	static Mono<Integer> listUsers(WebClient client, String token) {
+		return client.get().uri("/app/esb/users")
+				.header(HttpHeaders.AUTHORIZATION, token)
+				.exchangeToMono(response -> response.releaseBody()
+						.thenReturn(response.statusCode().value()));
+	}
+}
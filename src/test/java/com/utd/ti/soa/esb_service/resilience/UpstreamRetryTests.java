@@ -0,0 +1,118 @@
+package com.utd.ti.soa.esb_service.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.utd.ti.soa.esb_service.utils.BinaryCodec;
+
+import com.utd.ti.soa.esb_service.support.StubUpstream;
+import com.utd.ti.soa.esb_service.support.TestTokens;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"esb.cache.enabled=false",
+				"esb.retry.routes.list-products.initial-backoff=10ms",
+				"esb.retry.routes.list-products.hedge-max-delay=200ms",
+				"esb.encoding.binary-enabled=true"})
+class UpstreamRetryTests {
+
+	static final StubUpstream STUB = StubUpstream.start()
+			.respond("/products/allProducts", "[{\"name\":\"Teclado\"}]");
+
+	@DynamicPropertySource
+	static void upstreams(DynamicPropertyRegistry registry) {
+		registry.add("esb.upstream.products.base-url", STUB::baseUrl);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		STUB.close();
+	}
+
+	@Autowired
+	WebTestClient webTestClient;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	double counter(String name) {
+		return meterRegistry.counter(name, "route", "list-products").count();
+	}
+
+	WebTestClient.ResponseSpec listProducts() {
+		return webTestClient.get().uri("/app/esb/products")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.customer())
+				.exchange();
+	}
+
+	@Test
+	void transientFailuresAreRetried() {
+		double retries = counter("esb.route.retries");
+		int before = STUB.requestCount();
+		STUB.failNext(2, 503);
+
+		listProducts().expectStatus().isOk().expectBody(String.class).isEqualTo("[{\"name\":\"Teclado\"}]");
+
+		assertEquals(before + 3, STUB.requestCount());
+		assertEquals(retries + 2, counter("esb.route.retries"));
+	}
+
+	@Test
+	void clientErrorsAreNeitherRetriedNorHedged() {
+		double retries = counter("esb.route.retries");
+		double hedges = counter("esb.route.hedges");
+		int before = STUB.requestCount();
+		STUB.failNext(1, 400);
+
+		listProducts().expectStatus().isBadRequest();
+
+		assertEquals(before + 1, STUB.requestCount());
+		assertEquals(retries, counter("esb.route.retries"));
+		assertEquals(hedges, counter("esb.route.hedges"));
+	}
+
+	@Test
+	void slowAttemptIsHedgedAndTheFastestAnswerWins() {
+		double hedges = counter("esb.route.hedges");
+		int before = STUB.requestCount();
+		STUB.slowNext(1, Duration.ofSeconds(3));
+
+		long start = System.nanoTime();
+		listProducts().expectStatus().isOk().expectBody(String.class).isEqualTo("[{\"name\":\"Teclado\"}]");
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+		assertTrue(elapsed.compareTo(Duration.ofSeconds(2)) < 0, "tardó " + elapsed);
+		assertEquals(before + 2, STUB.requestCount());
+		assertEquals(hedges + 1, counter("esb.route.hedges"));
+	}
+
+	// Smile obliga a juntar el cuerpo: el intento cuenta hasta el último byte, no hasta las cabeceras
+	@Test
+	void aggregatedResponsesAreHedgedOnASlowBody() {
+		double hedges = counter("esb.route.hedges");
+		STUB.slowBodyNext(1, Duration.ofSeconds(3));
+
+		long start = System.nanoTime();
+		webTestClient.get().uri("/app/esb/products")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.customer())
+				.header(HttpHeaders.ACCEPT, BinaryCodec.APPLICATION_SMILE.toString())
+				.exchange()
+				.expectStatus().isOk();
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+		assertTrue(elapsed.compareTo(Duration.ofSeconds(2)) < 0, "tardó " + elapsed);
+		assertEquals(hedges + 1, counter("esb.route.hedges"));
+	}
+}
@@ -0,0 +1,138 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.utd.ti.soa.esb_service.support.StubUpstream;
+import com.utd.ti.soa.esb_service.support.TestTokens;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {"esb.batch.max-concurrency=2", "esb.cache.enabled=false"})
+class BatchDispatcherTests {
+
+	static final Duration LATENCY = Duration.ofMillis(300);
+
+	static final StubUpstream STUB = StubUpstream.start()
+			.latency(LATENCY)
+			.respond("/products/allProducts", "[{\"name\":\"Teclado\"}]")
+			.respond("/products/newProduct", "{\"id\":9}")
+			.respond("/clients/getClientid/8", "<html>Error 502</html>")
+			.respond("/clients/getClientid/9", "");
+
+	@DynamicPropertySource
+	static void upstreams(DynamicPropertyRegistry registry) {
+		registry.add("esb.upstream.products.base-url", STUB::baseUrl);
+		registry.add("esb.upstream.clients.base-url", STUB::baseUrl);
+		registry.add("esb.upstream.users.base-url", STUB::baseUrl);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		STUB.close();
+	}
+
+	@Autowired
+	WebTestClient webTestClient;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Test
+	void eachItemGetsItsOwnStatusAndTheTokenIsVerifiedOnce() {
+		List<Map<String, Object>> batch = List.of(
+				Map.of("method", "GET", "path", "/clients/7"),
+				Map.of("method", "GET", "path", "/products"),
+				Map.of("method", "GET", "path", "/orders"),
+				Map.of("method", "POST", "path", "/app/esb/products", "body", Map.of("name", "Mouse", "price", 250)),
+				Map.of("method", "GET", "path", "/products"));
+
+		int before = STUB.requestCount();
+		long verifiedBefore = meterRegistry.timer("esb.auth.verification", "result", "valid").count();
+		long start = System.nanoTime();
+		JsonNode results = webTestClient.post().uri("/app/esb/batch")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.seller())
+				.bodyValue(batch)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(JsonNode.class).returnResult().getResponseBody();
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+		assertEquals(5, results.size());
+		assertEquals(403, results.get(0).get("status").asInt());
+		assertEquals("Acceso denegado: Se requiere rol de administrador", results.get(0).get("body").asText());
+		assertEquals(200, results.get(1).get("status").asInt());
+		assertEquals("Teclado", results.get(1).get("body").get(0).get("name").asText());
+		assertEquals(404, results.get(2).get("status").asInt());
+		assertEquals(200, results.get(3).get("status").asInt());
+		assertEquals(9, results.get(3).get("body").get("id").asInt());
+		assertEquals(200, results.get(4).get("status").asInt());
+
+		assertEquals(before + 3, STUB.requestCount());
+		// 3 llamadas al upstream de 2 en 2: al menos dos rondas de latencia
+		assertThat(elapsed).isGreaterThanOrEqualTo(LATENCY.multipliedBy(2));
+		assertEquals(verifiedBefore + 1, meterRegistry.timer("esb.auth.verification", "result", "valid").count());
+	}
+
+	@Test
+	void bodiesThatAreNotValidJsonAreEmbeddedAsText() {
+		List<Map<String, Object>> batch = List.of(
+				Map.of("method", "GET", "path", "/clients/8"),
+				Map.of("method", "GET", "path", "/clients/9"));
+
+		JsonNode results = webTestClient.post().uri("/app/esb/batch")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.admin())
+				.bodyValue(batch)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(JsonNode.class).returnResult().getResponseBody();
+
+		assertEquals(2, results.size());
+		assertEquals("<html>Error 502</html>", results.get(0).get("body").asText());
+		assertEquals("", results.get(1).get("body").asText());
+	}
+
+	// recover-password admite 3 peticiones anónimas por IP: el lote gasta la cubeta de la IP del cliente
+	@Test
+	void anonymousItemsAreLimitedByTheCallersAddress() {
+		Map<String, Object> recover = Map.of("method", "POST", "path", "/users/password", "body", "{\"email\":\"a@b.c\"}");
+
+		JsonNode results = webTestClient.post().uri("/app/esb/batch")
+				.bodyValue(List.of(recover, recover, recover))
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(JsonNode.class).returnResult().getResponseBody();
+
+		for (JsonNode result : results) {
+			assertEquals(200, result.get("status").asInt());
+		}
+		webTestClient.post().uri("/app/esb/users/password")
+				.bodyValue("{\"email\":\"a@b.c\"}")
+				.exchange()
+				.expectStatus().isEqualTo(429);
+	}
+
+	@Test
+	void emptyBatchIsRejected() {
+		webTestClient.post().uri("/app/esb/batch")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.seller())
+				.bodyValue(List.of())
+				.exchange()
+				.expectStatus().isBadRequest();
+	}
+}
@@ -0,0 +1,123 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.utd.ti.soa.esb_service.support.StubUpstream;
+import com.utd.ti.soa.esb_service.support.TestTokens;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ConditionalRequestTests {
+
+	static final StubUpstream PRODUCTS = StubUpstream.start()
+			.respond("/products/allProducts", "[{\"id\":1,\"name\":\"Teclado\"}]");
+
+	static final StubUpstream USERS = StubUpstream.start()
+			.respond("/users/getUsers", "[{\"id\":1,\"name\":\"Luis\"}]")
+			.etag("/users/getUsers", "\"usuarios-v1\"");
+
+	static final StubUpstream CLIENTS = StubUpstream.start()
+			.respond("/clients/getClients", "[{\"id\":1,\"name\":\"Ana\"}]")
+			.etag("/clients/getClients", "\"clientes-v1\"");
+
+	@DynamicPropertySource
+	static void upstreams(DynamicPropertyRegistry registry) {
+		registry.add("esb.upstream.products.base-url", PRODUCTS::baseUrl);
+		registry.add("esb.upstream.clients.base-url", CLIENTS::baseUrl);
+		registry.add("esb.upstream.users.base-url", USERS::baseUrl);
+		registry.add("esb.cache.ttl.list-clients", () -> "100ms");
+		registry.add("esb.cache.ttl.list-products", () -> "100ms");
+	}
+
+	@AfterAll
+	static void stopStubs() {
+		PRODUCTS.close();
+		CLIENTS.close();
+		USERS.close();
+	}
+
+	@LocalServerPort
+	int port;
+
+	ResponseEntity<String> get(String path, String token, String ifNoneMatch) {
+		WebClient.RequestHeadersSpec<?> request = WebClient.create("http://localhost:" + port).get().uri(path)
+				.header(HttpHeaders.AUTHORIZATION, token);
+		if (ifNoneMatch != null) {
+			request = request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+		}
+		return request.exchangeToMono(response -> response.toEntity(String.class)).block();
+	}
+
+	@Test
+	void matchingIfNoneMatchGets304WithoutBody() {
+		ResponseEntity<String> first = get("/app/esb/products", TestTokens.customer(), null);
+		String etag = first.getHeaders().getETag();
+		assertEquals(200, first.getStatusCode().value());
+		assertNotNull(etag);
+
+		ResponseEntity<String> unchanged = get("/app/esb/products", TestTokens.customer(), etag);
+		ResponseEntity<String> other = get("/app/esb/products", TestTokens.customer(), "\"otra\"");
+
+		assertEquals(304, unchanged.getStatusCode().value());
+		assertEquals(etag, unchanged.getHeaders().getETag());
+		assertNull(unchanged.getBody());
+		assertEquals(200, other.getStatusCode().value());
+		assertEquals(etag, other.getHeaders().getETag());
+	}
+
+	@Test
+	void expiredCopyIsRevalidatedWithTheUpstreamETag() throws InterruptedException {
+		ResponseEntity<String> first = get("/app/esb/clients", TestTokens.admin(), null);
+		assertEquals("\"clientes-v1\"", first.getHeaders().getETag());
+		int before = CLIENTS.notModifiedCount();
+		Thread.sleep(200);
+
+		ResponseEntity<String> revalidated = get("/app/esb/clients", TestTokens.admin(), null);
+
+		assertEquals(before + 1, CLIENTS.notModifiedCount());
+		assertEquals(200, revalidated.getStatusCode().value());
+		assertEquals("[{\"id\":1,\"name\":\"Ana\"}]", revalidated.getBody());
+		assertEquals("\"clientes-v1\"", revalidated.getHeaders().getETag());
+	}
+
+	// El ETag que calcula el ESB no lo conoce el upstream: la copia caducada se vuelve a pedir sin If-None-Match
+	@Test
+	void expiredCopyWithTheGatewayETagIsFetchedAgainUnconditionally() throws InterruptedException {
+		String etag = get("/app/esb/products", TestTokens.customer(), null).getHeaders().getETag();
+		int before = PRODUCTS.requestCount();
+		Thread.sleep(200);
+
+		ResponseEntity<String> refreshed = get("/app/esb/products", TestTokens.customer(), null);
+
+		assertEquals(before + 1, PRODUCTS.requestCount());
+		assertEquals(0, PRODUCTS.conditionalCount());
+		assertEquals(etag, refreshed.getHeaders().getETag());
+	}
+
+	// list-users no tiene caché: se retransmite sin juntarlo y el 304 lo decide el upstream con su propio ETag
+	@Test
+	void uncachedGetsPassTheUpstreamETagAndConditionThrough() {
+		ResponseEntity<String> first = get("/app/esb/users", TestTokens.admin(), null);
+		int before = USERS.notModifiedCount();
+
+		ResponseEntity<String> unchanged = get("/app/esb/users", TestTokens.admin(), "\"usuarios-v1\"");
+
+		assertEquals(200, first.getStatusCode().value());
+		assertEquals("\"usuarios-v1\"", first.getHeaders().getETag());
+		assertEquals(304, unchanged.getStatusCode().value());
+		assertEquals("\"usuarios-v1\"", unchanged.getHeaders().getETag());
+		assertNull(unchanged.getBody());
+		assertEquals(before + 1, USERS.notModifiedCount());
+	}
+}
@@ -0,0 +1,118 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.utd.ti.soa.esb_service.support.StubUpstream;
+import com.utd.ti.soa.esb_service.support.TestTokens;
+import com.utd.ti.soa.esb_service.utils.BinaryCodec;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ContentNegotiationTests {
+
+	static final String PRODUCTS_JSON = IntStream.range(0, 200)
+			.mapToObj(i -> "{\"name\":\"Producto " + i + "\",\"category\":\"categoria-" + i % 12 + "\",\"price\":" + (99 + i) + "}")
+			.collect(Collectors.joining(",", "[", "]"));
+
+	static final StubUpstream STUB = StubUpstream.start()
+			.respond("/products/allProducts", PRODUCTS_JSON)
+			.respond("/clients/getClientid/1", "{\"name\":\"Ana\"}")
+			.respond("/users/getUsers", "[{\"name\":\"Ana\"}]");
+
+	@DynamicPropertySource
+	static void upstreams(DynamicPropertyRegistry registry) {
+		registry.add("esb.upstream.products.base-url", STUB::baseUrl);
+		registry.add("esb.upstream.clients.base-url", STUB::baseUrl);
+		registry.add("esb.upstream.users.base-url", STUB::baseUrl);
+		registry.add("esb.encoding.binary-enabled", () -> "true");
+	}
+
+	@AfterAll
+	static void stopStub() {
+		STUB.close();
+	}
+
+	@LocalServerPort
+	int port;
+
+	ResponseEntity<byte[]> get(String path, String header, String value) {
+		return WebClient.create("http://localhost:" + port).get().uri(path)
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.customer())
+				.header(header, value)
+				.exchangeToMono(response -> response.toEntity(byte[].class))
+				.block();
+	}
+
+	// Cliente del JDK: envía Accept-Encoding tal cual y no descomprime la respuesta
+	HttpResponse<byte[]> getEncoded(String path, String token, String encoding) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header(HttpHeaders.AUTHORIZATION, token)
+				.header(HttpHeaders.ACCEPT_ENCODING, encoding)
+				.build();
+		return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+	}
+
+	@Test
+	void largeResponsesAreCompressedAndSmallOnesAreNot() throws Exception {
+		HttpResponse<byte[]> gzip = getEncoded("/app/esb/products", TestTokens.customer(), "gzip");
+		HttpResponse<byte[]> brotli = getEncoded("/app/esb/products", TestTokens.customer(), "br");
+		HttpResponse<byte[]> small = getEncoded("/app/esb/clients/1", TestTokens.admin(), "gzip");
+
+		assertEquals("gzip", gzip.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+		assertEquals("br", brotli.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+		assertTrue(gzip.body().length < PRODUCTS_JSON.length() / 4);
+		assertEquals(200, small.statusCode());
+		assertTrue(small.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isEmpty());
+	}
+
+	@Test
+	void smallRelayedAndErrorResponsesKeepTheirLengthAndAreNotCompressed() throws Exception {
+		// list-users no se cachea: el cuerpo se retransmite y solo el Content-Length del upstream dice que es pequeño
+		HttpResponse<byte[]> relayed = getEncoded("/app/esb/users", TestTokens.admin(), "gzip");
+		HttpResponse<byte[]> denied = getEncoded("/app/esb/users", TestTokens.customer(), "gzip");
+
+		assertEquals(200, relayed.statusCode());
+		assertEquals("[{\"name\":\"Ana\"}]", new String(relayed.body(), StandardCharsets.UTF_8));
+		assertTrue(relayed.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isEmpty());
+		assertEquals(403, denied.statusCode());
+		assertTrue(denied.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isEmpty());
+	}
+
+	@Test
+	void smileIsNegotiatedWithItsOwnETag() throws Exception {
+		ResponseEntity<byte[]> json = get("/app/esb/products", HttpHeaders.ACCEPT, "application/json");
+		ResponseEntity<byte[]> smile = get("/app/esb/products", HttpHeaders.ACCEPT, "application/x-jackson-smile");
+
+		assertEquals(BinaryCodec.APPLICATION_SMILE, smile.getHeaders().getContentType());
+		assertEquals(new ObjectMapper().readTree(PRODUCTS_JSON),
+				new ObjectMapper(new SmileFactory()).readTree(smile.getBody()));
+		assertNotEquals(json.getHeaders().getETag(), smile.getHeaders().getETag());
+		assertEquals(304, WebClient.create("http://localhost:" + port).get().uri("/app/esb/products")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.customer())
+				.header(HttpHeaders.ACCEPT, "application/x-jackson-smile")
+				.header(HttpHeaders.IF_NONE_MATCH, smile.getHeaders().getETag())
+				.exchangeToMono(response -> response.toBodilessEntity())
+				.block().getStatusCode().value());
+	}
+}
@@ -0,0 +1,75 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.utd.ti.soa.esb_service.support.StubUpstream;
+import com.utd.ti.soa.esb_service.support.TestTokens;
+
+// Se ejecuta en su propia JVM con -Xmx128m (ejecución bounded-heap de surefire): el listado serializado ocupa
+// más que todo el heap, así que solo pasa si el ESB nunca lo junta en memoria
+@Tag("bounded-heap")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ListingStreamingTests {
+
+	static final int PRODUCTS = 1_000_000;
+
+	static final StubUpstream STUB = StubUpstream.start().respondList("/products/allProducts", PRODUCTS,
+			i -> "{\"id\":" + i + ",\"name\":\"Producto " + i + "\",\"description\":\"Descripción del producto " + i
+					+ " con un texto de longitud habitual\",\"category\":\"categoria-" + i % 12 + "\",\"price\":"
+					+ (99.9 + i) + ",\"stock\":" + i % 500 + ",\"brand\":\"Marca " + i % 40 + "\",\"status\":true}");
+
+	@DynamicPropertySource
+	static void upstreams(DynamicPropertyRegistry registry) {
+		registry.add("esb.upstream.products.base-url", STUB::baseUrl);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		STUB.close();
+	}
+
+	@LocalServerPort
+	int port;
+
+	@Test
+	void millionElementListIsStreamedAsNdjsonWithABoundedHeap() {
+		assertThat(Runtime.getRuntime().maxMemory()).isLessThanOrEqualTo(160L * 1024 * 1024);
+
+		AtomicLong lines = new AtomicLong();
+		AtomicLong bytes = new AtomicLong();
+		WebClient.create("http://localhost:" + port).get().uri("/app/esb/products")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.customer())
+				.accept(MediaType.APPLICATION_NDJSON)
+				.retrieve()
+				.bodyToFlux(DataBuffer.class)
+				.doOnNext(buffer -> {
+					bytes.addAndGet(buffer.readableByteCount());
+					for (int i = buffer.readPosition(); i < buffer.writePosition(); i++) {
+						if (buffer.getByte(i) == '\n') {
+							lines.incrementAndGet();
+						}
+					}
+					DataBufferUtils.release(buffer);
+				})
+				.blockLast();
+
+		assertEquals(PRODUCTS, lines.get());
+		assertThat(bytes.get()).isGreaterThan(Runtime.getRuntime().maxMemory());
+	}
+}
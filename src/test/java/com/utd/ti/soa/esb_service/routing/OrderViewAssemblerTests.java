@@ -0,0 +1,171 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.utd.ti.soa.esb_service.support.StubUpstream;
+import com.utd.ti.soa.esb_service.support.TestTokens;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "esb.cache.enabled=false")
+class OrderViewAssemblerTests {
+
+	static final Duration LATENCY = Duration.ofMillis(500);
+
+	static final StubUpstream USERS = StubUpstream.start().latency(LATENCY)
+			.respond("/users/getUsers", "[{\"id\":4,\"username\":\"luis\"},{\"id\":5,\"username\":\"ana\"}]")
+			.etag("/users/getUsers", "\"usuarios-v1\"");
+	static final StubUpstream CLIENTS = StubUpstream.start().latency(LATENCY)
+			.respond("/clients/getClientid/7", "{\"id\":7,\"name\":\"Ana\"}");
+	static final StubUpstream PRODUCTS = StubUpstream.start().latency(LATENCY)
+			.respond("/products/allProducts", "[{\"id\":3,\"name\":\"Teclado\",\"price\":250.0,\"stock\":2,\"status\":true}]");
+	static final StubUpstream PAYMENTS = StubUpstream.start()
+			.respond("/api/payments/create-order", "{\"orderId\":\"ord_1\"}");
+
+	@DynamicPropertySource
+	static void upstreams(DynamicPropertyRegistry registry) {
+		registry.add("esb.upstream.users.base-url", USERS::baseUrl);
+		registry.add("esb.upstream.clients.base-url", CLIENTS::baseUrl);
+		registry.add("esb.upstream.products.base-url", PRODUCTS::baseUrl);
+		registry.add("esb.upstream.payments.base-url", PAYMENTS::baseUrl);
+	}
+
+	@AfterAll
+	static void stopStubs() {
+		USERS.close();
+		CLIENTS.close();
+		PRODUCTS.close();
+		PAYMENTS.close();
+	}
+
+	@Autowired
+	WebTestClient webTestClient;
+
+	JsonNode view() {
+		return view(TestTokens.admin());
+	}
+
+	JsonNode view(String token) {
+		return webTestClient.get().uri("/app/esb/orders/view?userId=5&clientId=7&productId=3")
+				.header(HttpHeaders.AUTHORIZATION, token)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(JsonNode.class).returnResult().getResponseBody();
+	}
+
+	@Test
+	void viewFetchesTheThreeRecordsInParallel() {
+		view();
+
+		long start = System.nanoTime();
+		JsonNode view = view();
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+		assertEquals("ana", view.get("user").get("username").asText());
+		assertEquals("Ana", view.get("client").get("name").asText());
+		assertEquals("Teclado", view.get("product").get("name").asText());
+		// En serie serían al menos 1500 ms
+		assertThat(elapsed).isLessThan(LATENCY.multipliedBy(2));
+	}
+
+	@Test
+	void checkoutValidatesStockAndPriceBeforeCreatingTheOrder() {
+		int paymentsBefore = PAYMENTS.requestCount();
+
+		webTestClient.post().uri("/app/esb/orders/checkout")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.admin())
+				.bodyValue(Map.of("userId", 5, "clientId", "7", "productId", "3", "quantity", 3))
+				.exchange()
+				.expectStatus().isEqualTo(409)
+				.expectBody(String.class).isEqualTo("Stock insuficiente para el producto 3: disponible 2");
+
+		webTestClient.post().uri("/app/esb/orders/checkout")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.admin())
+				.bodyValue(Map.of("userId", 5, "clientId", "7", "productId", "3", "quantity", 2, "amount", 400.0))
+				.exchange()
+				.expectStatus().isEqualTo(409);
+		assertEquals(paymentsBefore, PAYMENTS.requestCount());
+
+		JsonNode checkout = webTestClient.post().uri("/app/esb/orders/checkout")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.admin())
+				.bodyValue(Map.of("userId", 5, "clientId", "7", "productId", "3", "quantity", 2))
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(JsonNode.class).returnResult().getResponseBody();
+
+		assertEquals("ord_1", checkout.get("order").get("orderId").asText());
+		assertEquals("ana", checkout.get("user").get("username").asText());
+		assertEquals(paymentsBefore + 1, PAYMENTS.requestCount());
+	}
+
+	@Test
+	void missingRecordAnswersNotFound() {
+		webTestClient.get().uri("/app/esb/orders/view?userId=99&clientId=7&productId=3")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.admin())
+				.exchange()
+				.expectStatus().isNotFound()
+				.expectBody(String.class).isEqualTo("Usuario 99 no encontrado");
+	}
+
+	// list-users y get-client son solo de admin: sin ese rol la vista y el checkout responden 403 sin consultar nada
+	@Test
+	void nonAdminRolesAreDenied() {
+		int users = USERS.requestCount();
+		int clients = CLIENTS.requestCount();
+		int payments = PAYMENTS.requestCount();
+
+		for (String token : new String[] {TestTokens.customer(), TestTokens.seller()}) {
+			webTestClient.get().uri("/app/esb/orders/view?userId=5&clientId=7&productId=3")
+					.header(HttpHeaders.AUTHORIZATION, token)
+					.exchange()
+					.expectStatus().isForbidden();
+			webTestClient.post().uri("/app/esb/orders/checkout")
+					.header(HttpHeaders.AUTHORIZATION, token)
+					.bodyValue(Map.of("userId", 5, "clientId", "7", "productId", "3", "quantity", 1))
+					.exchange()
+					.expectStatus().isForbidden();
+		}
+
+		assertEquals(users, USERS.requestCount());
+		assertEquals(clients, CLIENTS.requestCount());
+		assertEquals(payments, PAYMENTS.requestCount());
+	}
+
+	@Test
+	void viewRequiresAValidToken() {
+		webTestClient.get().uri("/app/esb/orders/view?userId=5&clientId=7&productId=3")
+				.exchange()
+				.expectStatus().isBadRequest();
+		webTestClient.get().uri("/app/esb/orders/view?userId=5&clientId=7&productId=3")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer invalido")
+				.exchange()
+				.expectStatus().isUnauthorized();
+	}
+
+	// Mientras el ETag del listado no cambie, el upstream responde 304 y el usuario sale del índice ya construido
+	@Test
+	void listingsAreRevalidatedInsteadOfDownloadedAgain() {
+		view(TestTokens.admin());
+		int before = USERS.notModifiedCount();
+
+		assertEquals("luis", webTestClient.get().uri("/app/esb/orders/view?userId=4&clientId=7&productId=3")
+				.header(HttpHeaders.AUTHORIZATION, TestTokens.admin())
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(JsonNode.class).returnResult().getResponseBody()
+				.get("user").get("username").asText());
+		assertEquals(before + 1, USERS.notModifiedCount());
+	}
+}
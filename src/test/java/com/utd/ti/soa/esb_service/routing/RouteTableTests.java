@@ -0,0 +1,161 @@
+package com.utd.ti.soa.esb_service.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import com.utd.ti.soa.esb_service.config.CacheProperties;
+import com.utd.ti.soa.esb_service.config.PassthroughProperties;
+import com.utd.ti.soa.esb_service.config.RateLimitProperties;
+import com.utd.ti.soa.esb_service.config.RetryProperties;
+import com.utd.ti.soa.esb_service.config.RouteProperties;
+import com.utd.ti.soa.esb_service.config.UpstreamClients;
+import com.utd.ti.soa.esb_service.config.UpstreamProperties;
+import com.utd.ti.soa.esb_service.metrics.GatewayMetrics;
+import com.utd.ti.soa.esb_service.resilience.RateLimiter;
+import com.utd.ti.soa.esb_service.resilience.UpstreamGuards;
+import com.utd.ti.soa.esb_service.resilience.UpstreamRetry;
+import com.utd.ti.soa.esb_service.support.StubUpstream;
+import com.utd.ti.soa.esb_service.support.TestTokens;
+import com.utd.ti.soa.esb_service.utils.Auth;
+import com.utd.ti.soa.esb_service.utils.JsonFieldFilter;
+import com.utd.ti.soa.esb_service.utils.JsonListStreamer;
+import com.utd.ti.soa.esb_service.utils.ResponseCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+
+class RouteTableTests {
+
+	final StubUpstream stub = StubUpstream.start()
+			.respond("/products/getProduct/42", "{\"name\":\"Teclado\"}")
+			.respond("/products/search", "[]");
+
+	final RateLimitProperties rateLimits = new RateLimitProperties();
+
+	UpstreamClients clients;
+
+	@AfterEach
+	void stop() {
+		if (clients != null) {
+			clients.destroy();
+		}
+		stub.close();
+	}
+
+	RouteProperties.Definition route(String id, String method, String path, String upstreamPath) {
+		RouteProperties.Definition definition = new RouteProperties.Definition();
+		definition.setId(id);
+		definition.setMethod(method);
+		definition.setPath(path);
+		definition.setUpstream("products");
+		definition.setUpstreamPath(upstreamPath);
+		return definition;
+	}
+
+	RouteDispatcher dispatcher(RouteProperties.Definition... definitions) {
+		UpstreamProperties.Service service = new UpstreamProperties.Service();
+		service.setBaseUrl(stub.baseUrl());
+		UpstreamProperties upstreams = new UpstreamProperties();
+		upstreams.getUpstream().put("products", service);
+		Auth auth = new Auth();
+		ResponseCache responseCache = new ResponseCache(new CacheProperties());
+		GatewayMetrics metrics = new GatewayMetrics(new SimpleMeterRegistry(), auth, responseCache);
+		clients = new UpstreamClients(upstreams, new UpstreamGuards(new SimpleMeterRegistry()), metrics);
+
+		RouteProperties routes = new RouteProperties();
+		routes.setRoutes(List.of(definitions));
+		RouteTable table = new RouteTable(routes, clients);
+		// Solo las etapas que ejercitan estas pruebas: tabla de rutas, límite y autorización
+		return RouteDispatcher.builder()
+				.routeTable(table)
+				.auth(auth)
+				.metrics(metrics)
+				.upstreamForwarder(new UpstreamForwarder(new JsonFieldFilter(new PassthroughProperties()),
+						new JsonListStreamer(), responseCache,
+						new UpstreamRetry(new RetryProperties(), table, new SimpleMeterRegistry())))
+				.handler(new RateLimitHandler(new RateLimiter(rateLimits)))
+				.handler(new AuthorizationHandler())
+				.build();
+	}
+
+	ResponseEntity<String> call(RouteDispatcher dispatcher, HttpMethod method, String path) {
+		ResponseEntity<Flux<DataBuffer>> response = dispatcher
+				.dispatch(GatewayRequest.of(method, path, TestTokens.customer(), null))
+				.block();
+		String body = DataBufferUtils.join(response.getBody())
+				.map(buffer -> {
+					String text = buffer.toString(StandardCharsets.UTF_8);
+					DataBufferUtils.release(buffer);
+					return text;
+				})
+				.block();
+		return ResponseEntity.status(response.getStatusCode()).headers(response.getHeaders()).body(body);
+	}
+
+	@Test
+	void routeDeclaredOnlyInPropertiesIsProxiedWithItsVariables() {
+		RouteDispatcher dispatcher = dispatcher(
+				route("get-product", "GET", "/products/{id:\\d+}", "/products/getProduct/{id}"));
+
+		ResponseEntity<String> response = call(dispatcher, HttpMethod.GET, "/products/42");
+
+		assertEquals(200, response.getStatusCode().value());
+		assertEquals("{\"name\":\"Teclado\"}", response.getBody());
+		assertEquals(1, stub.requestCount());
+	}
+
+	@Test
+	void literalPathsWinOverPatternsAndUnknownMethodsAreRejected() {
+		RouteDispatcher dispatcher = dispatcher(
+				route("get-product", "GET", "/products/{id}", "/products/getProduct/{id}"),
+				route("search-products", "GET", "/products/search", "/products/search"));
+
+		assertEquals("[]", call(dispatcher, HttpMethod.GET, "/products/search").getBody());
+		assertEquals(405, call(dispatcher, HttpMethod.DELETE, "/products/search").getStatusCode().value());
+		assertEquals(404, call(dispatcher, HttpMethod.GET, "/orders").getStatusCode().value());
+	}
+
+	@Test
+	void missingAuthorizationHeaderIsABadRequestOnEveryProtectedRoute() {
+		RouteProperties.Definition admin = route("update-product", "PATCH", "/products/{id}", "/products/update/{id}");
+		admin.setAuth(RouteAuth.ROLES);
+		admin.setRoles(List.of("admin"));
+		RouteDispatcher dispatcher = dispatcher(
+				route("search-products", "GET", "/products/search", "/products/search"), admin);
+
+		for (GatewayRequest request : List.of(GatewayRequest.of(HttpMethod.GET, "/products/search", null, null),
+				GatewayRequest.of(HttpMethod.PATCH, "/products/42", null, null))) {
+			assertEquals(400, dispatcher.dispatch(request).block().getStatusCode().value());
+		}
+		assertEquals(0, stub.requestCount());
+	}
+
+	@Test
+	void clientsOverTheirRouteLimitGet429WithRetryAfter() {
+		RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+		limit.setCapacity(2);
+		limit.setPerSecond(0.5);
+		rateLimits.getRoutes().put("search-products", Map.of("customer", limit));
+		RouteDispatcher dispatcher = dispatcher(
+				route("search-products", "GET", "/products/search", "/products/search"));
+
+		assertEquals(200, call(dispatcher, HttpMethod.GET, "/products/search").getStatusCode().value());
+		assertEquals(200, call(dispatcher, HttpMethod.GET, "/products/search").getStatusCode().value());
+		ResponseEntity<String> rejected = call(dispatcher, HttpMethod.GET, "/products/search");
+
+		assertEquals(429, rejected.getStatusCode().value());
+		assertEquals("2", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+		assertEquals(2, stub.requestCount());
+	}
+}
@@ -0,0 +1,159 @@
+package com.utd.ti.soa.esb_service.support;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+// Servidor local que sustituye a los microservicios de Railway en las pruebas
+public class StubUpstream implements AutoCloseable {
+
+	private final Map<String, String> bodies = new ConcurrentHashMap<>();
+	private final Map<String, Supplier<Flux<String>>> streams = new ConcurrentHashMap<>();
+	private final AtomicInteger requests = new AtomicInteger();
+	// Rutas con ETag fijo: un If-None-Match que coincide recibe 304 sin cuerpo
+	private final Map<String, String> etags = new ConcurrentHashMap<>();
+	private final AtomicInteger notModified = new AtomicInteger();
+	private final AtomicInteger conditional = new AtomicInteger();
+	// Recursos propios: al cerrar un contexto de Spring se liberan los recursos globales de Reactor Netty
+	private final LoopResources loops = LoopResources.create("stub-upstream");
+	private final DisposableServer server;
+	private volatile Duration latency = Duration.ZERO;
+	private volatile int status = 200;
+	// Upstream inestable: las próximas peticiones fallan o tardan más que el resto
+	private final AtomicInteger failuresLeft = new AtomicInteger();
+	private volatile int failureStatus = 503;
+	private final AtomicInteger slowLeft = new AtomicInteger();
+	private volatile Duration slowLatency = Duration.ZERO;
+	// Cabeceras al momento y cuerpo con retraso, como un listado grande
+	private final AtomicInteger slowBodyLeft = new AtomicInteger();
+	private volatile Duration slowBodyLatency = Duration.ZERO;
+
+	private StubUpstream() {
+		this.server = HttpServer.create()
+				.runOn(loops)
+				.port(0)
+				.handle((request, response) -> {
+					requests.incrementAndGet();
+					if (request.requestHeaders().contains("If-None-Match")) {
+						conditional.incrementAndGet();
+					}
+					if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+						return response.status(failureStatus).sendString(Mono.just("fallo simulado")).then();
+					}
+					Duration delay = slowLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0 ? slowLatency : latency;
+					Supplier<Flux<String>> stream = streams.get(request.path());
+					if (stream != null) {
+						return response.status(status)
+								.header("Content-Type", "application/json")
+								.sendString(stream.get())
+								.then();
+					}
+					String etag = etags.get(request.path());
+					if (etag != null) {
+						if (etag.equals(request.requestHeaders().get("If-None-Match"))) {
+							notModified.incrementAndGet();
+							return response.status(304).header("ETag", etag).send();
+						}
+						response.header("ETag", etag);
+					}
+					String body = bodies.getOrDefault(request.path(), "{}");
+					if (slowBodyLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+						return response.status(status)
+								.header("Content-Type", "application/json")
+								.sendHeaders()
+								.sendString(Mono.just(body).delayElement(slowBodyLatency))
+								.then();
+					}
+					return response.status(status)
+							.header("Content-Type", "application/json")
+							.sendString(Mono.just(body).delayElement(delay))
+							.then();
+				})
+				.bindNow();
+	}
+
+	public static StubUpstream start() {
+		return new StubUpstream();
+	}
+
+	public StubUpstream latency(Duration latency) {
+		this.latency = latency;
+		return this;
+	}
+
+	public StubUpstream status(int status) {
+		this.status = status;
+		return this;
+	}
+
+	public StubUpstream failNext(int count, int status) {
+		this.failureStatus = status;
+		this.failuresLeft.set(count);
+		return this;
+	}
+
+	public StubUpstream slowNext(int count, Duration latency) {
+		this.slowLatency = latency;
+		this.slowLeft.set(count);
+		return this;
+	}
+
+	public StubUpstream slowBodyNext(int count, Duration latency) {
+		this.slowBodyLatency = latency;
+		this.slowBodyLeft.set(count);
+		return this;
+	}
+
+	public StubUpstream respond(String path, String body) {
+		bodies.put(path.startsWith("/") ? path.substring(1) : path, body);
+		return this;
+	}
+
+	public StubUpstream etag(String path, String etag) {
+		etags.put(path.startsWith("/") ? path.substring(1) : path, etag);
+		return this;
+	}
+
+	// Listado JSON de "count" elementos generado a medida que se envía, sin tenerlo entero en memoria
+	public StubUpstream respondList(String path, int count, IntFunction<String> element) {
+		streams.put(path.startsWith("/") ? path.substring(1) : path, () -> Flux.concat(
+				Flux.just("["),
+				Flux.range(0, count).map(i -> i == 0 ? element.apply(i) : "," + element.apply(i))
+						.buffer(500)
+						.map(chunk -> String.join("", chunk)),
+				Flux.just("]")));
+		return this;
+	}
+
+	public String baseUrl() {
+		return "http://localhost:" + server.port();
+	}
+
+	public int requestCount() {
+		return requests.get();
+	}
+
+	public int notModifiedCount() {
+		return notModified.get();
+	}
+
+	// Peticiones que llegaron con If-None-Match
+	public int conditionalCount() {
+		return conditional.get();
+	}
+
+	@Override
+	public void close() {
+		server.disposeNow();
+		loops.disposeLater().block();
+	}
+}
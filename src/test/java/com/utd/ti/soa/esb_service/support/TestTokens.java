@@ -0,0 +1,39 @@
+package com.utd.ti.soa.esb_service.support;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+// Tokens firmados con las claves por defecto de Auth
+public final class TestTokens {
+
+	public static final String ADMIN_KEY = "adminSecretKey12345678901234567890123456789012";
+	public static final String CUSTOMER_KEY = "customerSecretKey1234567890123456789012345678";
+	public static final String SELLER_KEY = "sellerSecretKey123456789012345678901234567890";
+
+	private TestTokens() {
+	}
+
+	public static String token(String secret, String role, long ttlMillis) {
+		return "Bearer " + Jwts.builder()
+				.setSubject("user-" + role)
+				.claim("rol", role)
+				.setExpiration(new Date(System.currentTimeMillis() + ttlMillis))
+				.signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+				.compact();
+	}
+
+	public static String admin() {
+		return token(ADMIN_KEY, "admin", 3600000);
+	}
+
+	public static String seller() {
+		return token(SELLER_KEY, "seller", 3600000);
+	}
+
+	public static String customer() {
+		return token(CUSTOMER_KEY, "customer", 3600000);
+	}
+}
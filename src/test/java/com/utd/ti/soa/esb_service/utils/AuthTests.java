@@ -0,0 +1,112 @@
+package com.utd.ti.soa.esb_service.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static com.utd.ti.soa.esb_service.support.TestTokens.ADMIN_KEY;
+import static com.utd.ti.soa.esb_service.support.TestTokens.SELLER_KEY;
+import static com.utd.ti.soa.esb_service.support.TestTokens.token;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class AuthTests {
+
+	@Test
+	void validTokenIsVerifiedOnceAndThenServedFromCache() {
+		Auth auth = new Auth();
+		String token = token(ADMIN_KEY, "admin", 60000);
+
+		assertNotNull(auth.validateToken(token));
+		assertTrue(auth.hasRole(token, "admin"));
+		assertFalse(auth.hasRole(token, "seller"));
+
+		assertEquals(1, auth.getCacheMisses());
+		assertEquals(2, auth.getCacheHits());
+	}
+
+	@Test
+	void tokenSignedForAnotherRoleIsRejected() {
+		Auth auth = new Auth();
+
+		assertNull(auth.validateToken(token(SELLER_KEY, "admin", 60000)));
+		assertNull(auth.validateToken("Bearer not.a.jwt"));
+	}
+
+	@Test
+	void cachedEntryExpiresWithToken() throws InterruptedException {
+		Auth auth = new Auth();
+		String token = token(SELLER_KEY, "seller", 1500);
+
+		assertNotNull(auth.validateToken(token));
+		Thread.sleep(1600);
+		assertNull(auth.validateToken(token));
+	}
+
+	@Test
+	void cacheEvictsLeastRecentlyUsedEntry() {
+		Auth auth = new Auth(2, 60000);
+		String first = token(ADMIN_KEY, "admin", 60000);
+		String second = token(SELLER_KEY, "seller", 60000);
+		String third = token(ADMIN_KEY, "admin", 120000);
+
+		auth.validateToken(first);
+		auth.validateToken(second);
+		auth.validateToken(first);
+		auth.validateToken(third);
+		auth.validateToken(second);
+
+		assertEquals(1, auth.getCacheHits());
+		assertEquals(4, auth.getCacheMisses());
+	}
+
+	@Test
+	void keyIsChosenFromKidHeaderBeforeRolClaim() {
+		Auth auth = new Auth();
+		String token = "Bearer " + Jwts.builder()
+				.setHeaderParam("kid", "seller")
+				.claim("rol", "seller")
+				.signWith(Keys.hmacShaKeyFor(SELLER_KEY.getBytes(StandardCharsets.UTF_8)))
+				.compact();
+
+		assertTrue(auth.hasRole(token, "admin", "seller"));
+		assertNull(auth.validateToken(token(ADMIN_KEY, "customer", 60000)));
+	}
+
+	// Firmado con la clave de admin y rol admin, pero con kid seller: si el rol eligiera la clave sería válido
+	@Test
+	void kidWinsOverRolAndNoOtherKeyIsTried() {
+		Auth auth = new Auth();
+		String token = "Bearer " + Jwts.builder()
+				.setHeaderParam("kid", "seller")
+				.claim("rol", "admin")
+				.signWith(Keys.hmacShaKeyFor(ADMIN_KEY.getBytes(StandardCharsets.UTF_8)))
+				.compact();
+
+		assertNull(auth.validateToken(token));
+	}
+
+	@Test
+	void withoutKidOrWithAnUnknownKidTheRolClaimChoosesTheKey() {
+		Auth auth = new Auth();
+		String withoutKid = "Bearer " + Jwts.builder()
+				.claim("rol", "seller")
+				.signWith(Keys.hmacShaKeyFor(SELLER_KEY.getBytes(StandardCharsets.UTF_8)))
+				.compact();
+		String unknownKid = "Bearer " + Jwts.builder()
+				.setHeaderParam("kid", "rotada-2023")
+				.claim("rol", "admin")
+				.signWith(Keys.hmacShaKeyFor(ADMIN_KEY.getBytes(StandardCharsets.UTF_8)))
+				.compact();
+
+		assertEquals("seller", auth.validateToken(withoutKid).get("rol", String.class));
+		assertEquals("admin", auth.validateToken(unknownKid).get("rol", String.class));
+	}
+}
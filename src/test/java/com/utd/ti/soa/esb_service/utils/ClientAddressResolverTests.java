@@ -0,0 +1,52 @@
+package com.utd.ti.soa.esb_service.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import com.utd.ti.soa.esb_service.config.RateLimitProperties;
+
+class ClientAddressResolverTests {
+
+	final ClientAddressResolver resolver = resolver(List.of("10.0.0.0/8", "fc00::/7"));
+
+	static ClientAddressResolver resolver(List<String> trustedProxies) {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setTrustedProxies(trustedProxies);
+		return new ClientAddressResolver(properties);
+	}
+
+	static MockServerHttpRequest.BaseBuilder<?> from(String peer) {
+		return MockServerHttpRequest.get("/app/esb/users/login").remoteAddress(new InetSocketAddress(peer, 40000));
+	}
+
+	@Test
+	void forwardedHeadersFromAnUntrustedPeerAreIgnored() {
+		assertEquals("203.0.113.9", resolver.resolve(from("203.0.113.9")
+				.header("X-Forwarded-For", "198.51.100.1").build()));
+		assertEquals("10.1.2.3", resolver(List.of()).resolve(from("10.1.2.3")
+				.header("X-Forwarded-For", "198.51.100.1").build()));
+	}
+
+	// El cliente puede inventarse las entradas de la izquierda: cuenta la primera que no añadió un proxy de confianza
+	@Test
+	void behindTrustedProxiesTheRightmostUntrustedHopIsTheClient() {
+		assertEquals("198.51.100.7", resolver.resolve(from("10.0.0.2")
+				.header("X-Forwarded-For", "1.2.3.4, 198.51.100.7, 10.0.0.5").build()));
+		assertEquals("2001:db8::1", resolver.resolve(from("10.0.0.2")
+				.header("Forwarded", "for=\"[2001:DB8:0::1]:4711\";proto=https, for=10.0.0.5").build()));
+		assertEquals("198.51.100.8", resolver.resolve(from("10.0.0.2")
+				.header("Forwarded", "for=198.51.100.8:1234").build()));
+	}
+
+	@Test
+	void aHopThatIsNotAnAddressStopsTheWalk() {
+		assertEquals("10.0.0.5", resolver.resolve(from("10.0.0.2")
+				.header("X-Forwarded-For", "unknown, 10.0.0.5").build()));
+		assertEquals("10.0.0.2", resolver.resolve(from("10.0.0.2").build()));
+	}
+}
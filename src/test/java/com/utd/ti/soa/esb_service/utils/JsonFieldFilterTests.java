@@ -0,0 +1,56 @@
+package com.utd.ti.soa.esb_service.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import com.utd.ti.soa.esb_service.config.PassthroughProperties;
+
+import reactor.core.publisher.Flux;
+
+class JsonFieldFilterTests {
+
+	static JsonFieldFilter filter(String route, String... fields) {
+		PassthroughProperties properties = new PassthroughProperties();
+		properties.getDropFields().put(route, Set.of(fields));
+		return new JsonFieldFilter(properties);
+	}
+
+	// Parte el cuerpo en trozos pequeños para simular la llegada por la red
+	static Flux<DataBuffer> chunks(String json, int size) {
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		return Flux.range(0, (bytes.length + size - 1) / size)
+				.map(i -> DefaultDataBufferFactory.sharedInstance
+						.wrap(Arrays.copyOfRange(bytes, i * size, Math.min(bytes.length, (i + 1) * size))));
+	}
+
+	static String join(Flux<DataBuffer> body) {
+		DataBuffer joined = DataBufferUtils.join(body).block();
+		return joined.toString(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void dropsConfiguredFieldsAcrossChunkBoundaries() {
+		String upstream = "[{\"name\":\"Té\",\"price\":10.50,\"stock\":3,\"audit\":{\"by\":[1,{\"x\":2}]}},"
+				+ "{\"name\":\"Café\",\"price\":100,\"audit\":null,\"status\":true}]";
+
+		String filtered = join(filter("products", "audit", "stock").apply("products", chunks(upstream, 7)));
+
+		assertEquals("[{\"name\":\"Té\",\"price\":10.50},{\"name\":\"Café\",\"price\":100,\"status\":true}]", filtered);
+	}
+
+	@Test
+	void routesWithoutProjectionAreRelayedUntouched() {
+		Flux<DataBuffer> body = chunks("[]", 1);
+
+		assertSame(body, filter("products", "audit").apply("clients", body));
+	}
+}
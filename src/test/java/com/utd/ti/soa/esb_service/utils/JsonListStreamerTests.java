@@ -0,0 +1,74 @@
+package com.utd.ti.soa.esb_service.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import com.utd.ti.soa.esb_service.utils.JsonListStreamer.Format;
+
+import reactor.core.publisher.Flux;
+
+class JsonListStreamerTests {
+
+	final JsonListStreamer streamer = new JsonListStreamer();
+
+	// Trozos de 7 bytes para que los elementos queden partidos entre buffers
+	Flux<DataBuffer> chunked(String json, AtomicBoolean cancelled) {
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		List<DataBuffer> chunks = new ArrayList<>();
+		for (int i = 0; i < bytes.length; i += 7) {
+			byte[] chunk = new byte[Math.min(7, bytes.length - i)];
+			System.arraycopy(bytes, i, chunk, 0, chunk.length);
+			chunks.add(DefaultDataBufferFactory.sharedInstance.wrap(chunk));
+		}
+		return Flux.fromIterable(chunks).doOnCancel(() -> cancelled.set(true));
+	}
+
+	String collect(Flux<DataBuffer> body) {
+		return DataBufferUtils.join(body)
+				.map(buffer -> {
+					String text = buffer.toString(StandardCharsets.UTF_8);
+					DataBufferUtils.release(buffer);
+					return text;
+				})
+				.block();
+	}
+
+	static final String LIST = "[{\"id\":1,\"tags\":[\"a\",{\"b\":2}]},{\"id\":2,\"name\":\"Teclado \\\"pro\\\"\"},"
+			+ "{\"id\":3},7,{\"id\":5}]";
+
+	@Test
+	void splitsElementsAcrossChunksAsNdjson() {
+		String ndjson = collect(streamer.stream(chunked(LIST, new AtomicBoolean()), Format.NDJSON, 0, -1, String::valueOf));
+
+		assertEquals("{\"id\":1,\"tags\":[\"a\",{\"b\":2}]}\n{\"id\":2,\"name\":\"Teclado \\\"pro\\\"\"}\n"
+				+ "{\"id\":3}\n7\n{\"id\":5}\n", ndjson);
+	}
+
+	@Test
+	void pageStopsReadingTheUpstreamAndReturnsTheNextCursor() {
+		AtomicBoolean cancelled = new AtomicBoolean();
+
+		String page = collect(streamer.stream(chunked(LIST, cancelled), Format.JSON, 1, 2, offset -> "c" + offset));
+
+		assertEquals("{\"items\":[{\"id\":2,\"name\":\"Teclado \\\"pro\\\"\"},{\"id\":3}],\"nextCursor\":\"c3\"}", page);
+		assertTrue(cancelled.get());
+	}
+
+	@Test
+	void lastPageHasNoCursorAndSseAnnouncesTheNextOne() {
+		assertEquals("{\"items\":[7,{\"id\":5}],\"nextCursor\":null}",
+				collect(streamer.stream(chunked(LIST, new AtomicBoolean()), Format.JSON, 3, 2, offset -> "c" + offset)));
+		assertEquals("data: {\"id\":3}\n\nevent: next\ndata: c3\n\n",
+				collect(streamer.stream(chunked(LIST, new AtomicBoolean()), Format.SSE, 2, 1, offset -> "c" + offset)));
+	}
+}
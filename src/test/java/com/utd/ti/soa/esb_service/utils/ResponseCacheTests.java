@@ -0,0 +1,106 @@
+package com.utd.ti.soa.esb_service.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import com.utd.ti.soa.esb_service.config.CacheProperties;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class ResponseCacheTests {
+
+	final AtomicInteger upstreamCalls = new AtomicInteger();
+
+	ResponseCache cache() {
+		CacheProperties properties = new CacheProperties();
+		properties.setMaxSize(2);
+		properties.getTtl().put("products", Duration.ofMinutes(1));
+		return new ResponseCache(properties);
+	}
+
+	Supplier<Mono<ResponseEntity<byte[]>>> upstream(String body) {
+		return () -> Mono.fromSupplier(() -> {
+			upstreamCalls.incrementAndGet();
+			return ResponseEntity.ok(body.getBytes(StandardCharsets.UTF_8));
+		}).delayElement(Duration.ofMillis(50));
+	}
+
+	@Test
+	void concurrentMissesShareOneUpstreamCall() {
+		ResponseCache cache = cache();
+
+		Flux.range(0, 20)
+				.flatMap(i -> cache.get("products", "customer", "", upstream("[]")))
+				.blockLast();
+		cache.get("products", "customer", "", upstream("[]")).block();
+
+		assertEquals(1, upstreamCalls.get());
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	void keysAreScopedByRole() {
+		ResponseCache cache = cache();
+
+		cache.get("products", "admin", "", upstream("admin")).block();
+		ResponseEntity<byte[]> seller = cache.get("products", "seller", "", upstream("seller")).block();
+
+		assertEquals("seller", new String(seller.getBody(), StandardCharsets.UTF_8));
+		assertEquals(2, upstreamCalls.get());
+	}
+
+	@Test
+	void writesInvalidateTheRoute() {
+		ResponseCache cache = cache();
+
+		cache.get("products", "admin", "", upstream("v1")).block();
+		cache.invalidate("products");
+		ResponseEntity<byte[]> fresh = cache.get("products", "admin", "", upstream("v2")).block();
+
+		assertEquals("v2", new String(fresh.getBody(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void aLoadStartedBeforeAnInvalidationDoesNotEvictTheNewerOne() {
+		ResponseCache cache = cache();
+		Sinks.One<ResponseEntity<byte[]>> older = Sinks.one();
+		Sinks.One<ResponseEntity<byte[]>> newer = Sinks.one();
+
+		cache.get("products", "admin", "", older::asMono).subscribe();
+		cache.invalidate("products");
+		cache.get("products", "admin", "", newer::asMono).subscribe();
+		older.tryEmitValue(ResponseEntity.ok("v1".getBytes(StandardCharsets.UTF_8)));
+
+		// La carga anterior ya terminó: esta petición debe unirse a la nueva, no lanzar otra
+		Mono<ResponseEntity<byte[]>> joined = cache.get("products", "admin", "", upstream("v3"));
+		newer.tryEmitValue(ResponseEntity.ok("v2".getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals("v2", new String(joined.block().getBody(), StandardCharsets.UTF_8));
+		assertEquals(0, upstreamCalls.get());
+	}
+
+	@Test
+	void errorsAndUnconfiguredRoutesAreNotCached() {
+		ResponseCache cache = cache();
+		Supplier<Mono<ResponseEntity<byte[]>>> failing = () -> Mono.fromSupplier(() -> {
+			upstreamCalls.incrementAndGet();
+			return ResponseEntity.status(500).body("Error interno".getBytes(StandardCharsets.UTF_8));
+		});
+
+		cache.get("products", "admin", "", failing).block();
+		cache.get("products", "admin", "", failing).block();
+		cache.get("users", "admin", "", upstream("[]")).block();
+		cache.get("users", "admin", "", upstream("[]")).block();
+
+		assertEquals(4, upstreamCalls.get());
+	}
+}
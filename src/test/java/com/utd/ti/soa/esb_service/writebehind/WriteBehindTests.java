@@ -0,0 +1,259 @@
+package com.utd.ti.soa.esb_service.writebehind;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utd.ti.soa.esb_service.EsbServiceApplication;
+import com.utd.ti.soa.esb_service.routing.Route;
+import com.utd.ti.soa.esb_service.routing.RouteDispatcher;
+import com.utd.ti.soa.esb_service.routing.RouteTable;
+import com.utd.ti.soa.esb_service.support.StubUpstream;
+import com.utd.ti.soa.esb_service.support.TestTokens;
+
+import reactor.core.publisher.Flux;
+
+class WriteBehindTests {
+
+	@TempDir
+	Path directory;
+
+	final String token = TestTokens.admin();
+
+	ConfigurableApplicationContext startGateway(StubUpstream stub, String... properties) {
+		String[] args = new String[properties.length + 5];
+		args[0] = "--server.port=0";
+		args[1] = "--esb.upstream.products.base-url=" + stub.baseUrl();
+		args[2] = "--esb.write-behind.enabled=true";
+		args[3] = "--esb.write-behind.directory=" + directory;
+		args[4] = "--esb.write-behind.initial-backoff=50ms";
+		System.arraycopy(properties, 0, args, 5, properties.length);
+		return new SpringApplicationBuilder(EsbServiceApplication.class).run(args);
+	}
+
+	static WebClient client(ConfigurableApplicationContext gateway) {
+		return WebClient.create("http://localhost:" + gateway.getEnvironment().getProperty("local.server.port"));
+	}
+
+	ResponseEntity<JsonNode> updateAsync(ConfigurableApplicationContext gateway) {
+		return updateAsync(gateway, token);
+	}
+
+	ResponseEntity<JsonNode> updateAsync(ConfigurableApplicationContext gateway, String token) {
+		return client(gateway).patch().uri("/app/esb/products/update/5")
+				.header(HttpHeaders.AUTHORIZATION, token)
+				.header("Prefer", "respond-async")
+				.bodyValue(Map.of("name", "Mouse", "price", 250))
+				.retrieve()
+				.toEntity(JsonNode.class)
+				.block();
+	}
+
+	JsonNode status(ConfigurableApplicationContext gateway, String id) {
+		return client(gateway).get().uri("/app/esb/jobs/{id}", id)
+				.header(HttpHeaders.AUTHORIZATION, token)
+				.retrieve()
+				.bodyToMono(JsonNode.class)
+				.block();
+	}
+
+	JsonNode awaitFinished(ConfigurableApplicationContext gateway, String id) throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			JsonNode job = status(gateway, id);
+			if (!"PENDING".equals(job.get("status").asText())) {
+				return job;
+			}
+			Thread.sleep(100);
+		}
+		throw new AssertionError("El trabajo " + id + " no terminó");
+	}
+
+	@Test
+	void acceptedWritesSurviveARestartAndAreDeliveredOnce() throws Exception {
+		try (StubUpstream stub = StubUpstream.start().respond("/products/updateProduct/5", "{\"updated\":true}")) {
+			String id;
+			// Sin workers: el trabajo solo queda en disco
+			ConfigurableApplicationContext gateway = startGateway(stub, "--esb.write-behind.workers=0");
+			try {
+				ResponseEntity<JsonNode> accepted = updateAsync(gateway);
+				assertEquals(202, accepted.getStatusCode().value());
+				id = accepted.getBody().get("id").asText();
+				assertEquals("/app/esb/jobs/" + id, accepted.getHeaders().getLocation().toString());
+				assertEquals("PENDING", status(gateway, id).get("status").asText());
+			} finally {
+				gateway.close();
+			}
+			assertEquals(0, stub.requestCount());
+
+			gateway = startGateway(stub);
+			try {
+				JsonNode job = awaitFinished(gateway, id);
+
+				assertEquals("SUCCEEDED", job.get("status").asText());
+				assertEquals(200, job.get("httpStatus").asInt());
+				assertEquals("{\"updated\":true}", job.get("response").asText());
+				assertNotNull(job.get("finishedAt"));
+				assertEquals(1, stub.requestCount());
+			} finally {
+				gateway.close();
+			}
+		}
+	}
+
+	@Test
+	void failedDeliveriesAreRetriedWithBackoffUntilMaxAttempts() throws Exception {
+		try (StubUpstream stub = StubUpstream.start().status(503)) {
+			ConfigurableApplicationContext gateway = startGateway(stub, "--esb.write-behind.max-attempts=3");
+			try {
+				String id = updateAsync(gateway).getBody().get("id").asText();
+
+				JsonNode job = awaitFinished(gateway, id);
+
+				assertEquals("FAILED", job.get("status").asText());
+				assertEquals(3, job.get("attempts").asInt());
+				assertEquals(503, job.get("httpStatus").asInt());
+				assertEquals(3, stub.requestCount());
+			} finally {
+				gateway.close();
+			}
+		}
+	}
+
+	@Test
+	void aRetriedAsyncCreateWithTheSameKeyGetsTheSameJob() throws Exception {
+		try (StubUpstream stub = StubUpstream.start()) {
+			ConfigurableApplicationContext gateway = startGateway(stub, "--esb.write-behind.workers=0");
+			try {
+				List<ResponseEntity<JsonNode>> responses = Flux.range(0, 2)
+						.concatMap(i -> client(gateway).post().uri("/app/esb/products")
+								.header(HttpHeaders.AUTHORIZATION, token)
+								.header("Prefer", "respond-async")
+								.header(RouteDispatcher.IDEMPOTENCY_KEY, "producto-1")
+								.bodyValue(Map.of("name", "Mouse", "price", 250))
+								.retrieve()
+								.toEntity(JsonNode.class))
+						.collectList()
+						.block();
+
+				assertEquals(202, responses.get(1).getStatusCode().value());
+				assertEquals(responses.get(0).getBody().get("id"), responses.get(1).getBody().get("id"));
+				assertEquals("true", responses.get(1).getHeaders().getFirst(RouteDispatcher.IDEMPOTENT_REPLAYED));
+				assertEquals(1, Files.readAllLines(directory.resolve("jobs.log")).size());
+				if (Files.getFileStore(directory).supportsFileAttributeView("posix")) {
+					assertEquals(Set.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE),
+							Files.getPosixFilePermissions(directory.resolve("jobs.log")));
+				}
+			} finally {
+				gateway.close();
+			}
+		}
+	}
+
+	@Test
+	void jobsAcceptedWhileTheLogIsCompactedAreNotLost() throws Exception {
+		List<String> ids = new ArrayList<>();
+		try (StubUpstream stub = StubUpstream.start()) {
+			ConfigurableApplicationContext gateway = startGateway(stub, "--esb.write-behind.workers=0");
+			ExecutorService pool = Executors.newFixedThreadPool(5);
+			try {
+				WriteBehindQueue queue = gateway.getBean(WriteBehindQueue.class);
+				Route route = gateway.getBean(RouteTable.class).get("update-product");
+				byte[] body = new ObjectMapper().writeValueAsBytes(Map.of("name", "Mouse"));
+				ConcurrentLinkedQueue<String> accepted = new ConcurrentLinkedQueue<>();
+				AtomicBoolean enqueuing = new AtomicBoolean(true);
+				CountDownLatch start = new CountDownLatch(1);
+
+				Future<?> compactor = pool.submit(() -> {
+					start.await();
+					while (enqueuing.get()) {
+						queue.compact();
+					}
+					return null;
+				});
+				List<Future<?>> producers = new ArrayList<>();
+				for (int t = 0; t < 4; t++) {
+					producers.add(pool.submit(() -> {
+						start.await();
+						for (int i = 0; i < 50; i++) {
+							ResponseEntity<byte[]> response = queue.enqueue(route, URI.create("/products/updateProduct/5"),
+									token, null, body).block();
+							accepted.add(new ObjectMapper().readTree(response.getBody()).get("id").asText());
+						}
+						return null;
+					}));
+				}
+				start.countDown();
+				for (Future<?> producer : producers) {
+					producer.get();
+				}
+				enqueuing.set(false);
+				compactor.get();
+				ids.addAll(accepted);
+			} finally {
+				pool.shutdownNow();
+				gateway.close();
+			}
+
+			assertEquals(200, ids.size());
+			gateway = startGateway(stub, "--esb.write-behind.workers=0");
+			try {
+				WriteBehindQueue recovered = gateway.getBean(WriteBehindQueue.class);
+				for (String id : ids) {
+					assertNotNull(recovered.job(id), "trabajo perdido: " + id);
+				}
+			} finally {
+				gateway.close();
+			}
+		}
+	}
+
+	// Un trabajo que espera más que su token falla sin llegar al microservicio
+	@Test
+	void aJobWhoseTokenExpiredInTheQueueFailsWithoutBeingSent() throws Exception {
+		try (StubUpstream stub = StubUpstream.start()) {
+			String id;
+			ConfigurableApplicationContext gateway = startGateway(stub, "--esb.write-behind.workers=0");
+			try {
+				id = updateAsync(gateway, TestTokens.token(TestTokens.ADMIN_KEY, "admin", 1500)).getBody().get("id").asText();
+			} finally {
+				gateway.close();
+			}
+			Thread.sleep(2000);
+
+			gateway = startGateway(stub);
+			try {
+				JsonNode job = awaitFinished(gateway, id);
+
+				assertEquals("FAILED", job.get("status").asText());
+				assertEquals(401, job.get("httpStatus").asInt());
+				assertEquals(0, stub.requestCount());
+			} finally {
+				gateway.close();
+			}
+		}
+	}
+}